@@ -0,0 +1,126 @@
+package project.src.Bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class BenchmarkHarness {
+
+    public static final String CSV_HEADER = "benchmark,parameters,mean_ms,stddev_ms,throughput,unit";
+
+    private final int warmups; // runs of each benchmark before it is measured, for the JIT
+    private final int iterations; // measured runs of each benchmark
+    private final ArrayList<Result> results = new ArrayList<>();
+    private long sink = 0; // checksums of all the runs, so that the JIT cannot drop their work
+
+    public BenchmarkHarness(int warmups, int iterations) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+    }
+
+    public Result measure(String name, String parameters, double unitsPerRun, String unit, Benchmark benchmark) throws Exception {
+        // Run the benchmark warmups + iterations times, and keep the mean and standard deviation of the measured runs; the throughput is unitsPerRun over the mean time, in unit per second
+
+        for (int i = 0; i < this.warmups; i++) {
+            this.sink += benchmark.run();
+        }
+        double[] times = new double[this.iterations];
+        for (int i = 0; i < this.iterations; i++) {
+            long start = System.nanoTime();
+            this.sink += benchmark.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+
+        double mean = 0;
+        for (double time : times) {
+            mean += time;
+        }
+        mean /= times.length;
+        double variance = 0;
+        for (double time : times) {
+            variance += (time - mean) * (time - mean);
+        }
+        double stddev = times.length > 1 ? Math.sqrt(variance / (times.length - 1)) : 0;
+
+        Result result = new Result(name, parameters, mean, stddev, unitsPerRun * 1e3 / mean, unit);
+        this.results.add(result);
+        System.out.printf("  %-28s %-32s %9.1f +- %7.1f ms %10.1f %s%n", name, parameters, mean, stddev, result.throughput, unit);
+        return result;
+    }
+
+    public long getSink() {
+        return this.sink;
+    }
+
+    public void writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (Result result : this.results) {
+                writer.write(String.format("%s,%s,%.3f,%.3f,%.3f,%s", result.name, result.parameters, result.meanMs, result.stddevMs, result.throughput, result.unit));
+                writer.newLine();
+            }
+        }
+    }
+
+    public int compare(Path baseline, double tolerance) throws IOException {
+        // Compare the throughputs to the ones of a CSV written by an earlier run, and print the benchmarks slower by more than tolerance (0.1 for 10%); returns their number
+
+        HashMap<String, Double> baselineThroughputs = new HashMap<>();
+        List<String> lines = Files.readAllLines(baseline, StandardCharsets.UTF_8);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            baselineThroughputs.put(fields[0] + "," + fields[1], Double.parseDouble(fields[4]));
+        }
+
+        int regressions = 0;
+        System.out.println("Compared to " + baseline + ":");
+        for (Result result : this.results) {
+            Double before = baselineThroughputs.get(result.name + "," + result.parameters);
+            if (before == null) {
+                continue;
+            }
+            double change = result.throughput / before - 1;
+            boolean regression = change < -tolerance;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("  %-28s %-32s %+6.1f%%%s%n", result.name, result.parameters, 100 * change, regression ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+
+    /* NOTE: Benchmarks and their results */
+
+    public interface Benchmark {
+        // One run of the benchmark; returns a checksum of its work
+        long run() throws Exception;
+    }
+
+    public static class Result {
+        private final String name;
+        private final String parameters; // corpus of the run, without commas
+        private final double meanMs;
+        private final double stddevMs;
+        private final double throughput;
+        private final String unit;
+
+        private Result(String name, String parameters, double meanMs, double stddevMs, double throughput, String unit) {
+            this.name = name;
+            this.parameters = parameters;
+            this.meanMs = meanMs;
+            this.stddevMs = stddevMs;
+            this.throughput = throughput;
+            this.unit = unit;
+        }
+
+        public double getThroughput() {
+            return this.throughput;
+        }
+    }
+}
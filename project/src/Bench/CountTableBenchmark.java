@@ -0,0 +1,160 @@
+package project.src.Bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import project.src.Slave.ByteSliceCountTable;
+import project.src.Slave.OffHeapCountTable;
+import project.src.Slave.SplitTokenizer;
+import project.src.Slave.WordCountTable;
+
+public class CountTableBenchmark {
+
+    private final String[] stream; // words to count, drawn from the synthetic vocabulary
+    private final byte[][] streamBytes; // same words as UTF-8, as the tokenizer gives them
+    private final int[] streamHashes;
+    private final String[] distinctWords; // every word of the stream once, to measure the memory of the tables
+
+    public CountTableBenchmark(SyntheticCorpus corpus, int operations) {
+        this.stream = corpus.words(operations);
+        this.streamBytes = new byte[operations][];
+        this.streamHashes = new int[operations];
+        for (int i = 0; i < operations; i++) {
+            this.streamBytes[i] = this.stream[i].getBytes(StandardCharsets.UTF_8);
+            this.streamHashes[i] = SplitTokenizer.hash(this.streamBytes[i], 0, this.streamBytes[i].length);
+        }
+        HashMap<String, Integer> distinct = new HashMap<>();
+        for (String word : this.stream) {
+            distinct.put(word, 0);
+        }
+        this.distinctWords = distinct.keySet().toArray(new String[0]);
+    }
+
+    public int hashMapContainsGetPut() {
+        // Previous reducer path of the Slave and of the combiner
+        HashMap<String, Integer> counts = new HashMap<>();
+        for (String word : this.stream) {
+            if (counts.containsKey(word)) {
+                counts.put(word, counts.get(word) + 1);
+            } else {
+                counts.put(word, 1);
+            }
+        }
+        return counts.size();
+    }
+
+    public int hashMapMerge() {
+        HashMap<String, Integer> counts = new HashMap<>();
+        for (String word : this.stream) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        return counts.size();
+    }
+
+    public int wordCountTable() {
+        WordCountTable counts = new WordCountTable();
+        for (String word : this.stream) {
+            counts.add(word, 1);
+        }
+        return counts.size();
+    }
+
+    public int byteSliceCountTable() {
+        ByteSliceCountTable counts = new ByteSliceCountTable();
+        for (int i = 0; i < this.streamBytes.length; i++) {
+            counts.add(this.streamBytes[i], 0, this.streamBytes[i].length, this.streamHashes[i], 1);
+        }
+        return counts.size();
+    }
+
+    public int offHeapCountTable() {
+        OffHeapCountTable counts = new OffHeapCountTable();
+        for (int i = 0; i < this.streamBytes.length; i++) {
+            counts.add(this.streamBytes[i], 0, this.streamBytes[i].length, this.streamHashes[i], 1);
+        }
+        return counts.size();
+    }
+
+    public void measureMemory() {
+        // Heap retained per distinct word by each table; the String keys are shared with the vocabulary, so they are not counted for the String tables, while the byte-slice table holds its own copy of the keys
+
+        int words = this.distinctWords.length;
+        long before = usedMemory();
+        HashMap<String, Integer> hashMap = new HashMap<>();
+        for (String word : this.distinctWords) {
+            hashMap.put(word, 1000); // counts above the Integer cache, as in a real reducer
+        }
+        long afterHashMap = usedMemory();
+        WordCountTable wordCountTable = new WordCountTable();
+        for (String word : this.distinctWords) {
+            wordCountTable.add(word, 1000);
+        }
+        long afterWordCountTable = usedMemory();
+        ByteSliceCountTable byteSliceTable = new ByteSliceCountTable();
+        for (String word : this.distinctWords) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            byteSliceTable.add(bytes, 0, bytes.length, SplitTokenizer.hash(bytes, 0, bytes.length), 1000);
+        }
+        long afterByteSliceTable = usedMemory();
+        String[] keys = new String[words]; // what the keys cost the String tables when they are not shared
+        for (int i = 0; i < words; i++) {
+            keys[i] = new String(this.distinctWords[i].getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        }
+        long afterKeys = usedMemory();
+        OffHeapCountTable offHeapTable = new OffHeapCountTable();
+        for (String word : this.distinctWords) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            offHeapTable.add(bytes, 0, bytes.length, SplitTokenizer.hash(bytes, 0, bytes.length), 1000);
+        }
+        long afterOffHeapTable = usedMemory();
+
+        System.out.printf("Memory per entry (%d words):%n", words);
+        System.out.printf("  HashMap<String, Integer>: %6.1f bytes%n", (afterHashMap - before) / (double) words);
+        System.out.printf("  WordCountTable:           %6.1f bytes%n", (afterWordCountTable - afterHashMap) / (double) words);
+        System.out.printf("  ByteSliceCountTable:      %6.1f bytes (keys included)%n", (afterByteSliceTable - afterWordCountTable) / (double) words);
+        System.out.printf("  String key alone:         %6.1f bytes%n", (afterKeys - afterByteSliceTable - 4.0 * words) / words);
+        System.out.printf("  OffHeapCountTable:        %6.1f bytes of heap, %6.1f bytes off-heap (keys included)%n", (afterOffHeapTable - afterKeys) / (double) words, offHeapTable.offHeapBytes() / (double) words);
+        if (hashMap.size() + wordCountTable.size() + byteSliceTable.size() + keys.length + offHeapTable.size() != 5 * words) {
+            System.out.println("  Tables differ in size");
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        int vocabulary = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        double skew = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 10000000;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        CountTableBenchmark benchmark = new CountTableBenchmark(new SyntheticCorpus(vocabulary, skew, 42), operations);
+        benchmark.measureMemory();
+
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            int containsGetPut = benchmark.hashMapContainsGetPut();
+            long endContainsGetPut = System.nanoTime();
+            int merge = benchmark.hashMapMerge();
+            long endMerge = System.nanoTime();
+            int table = benchmark.wordCountTable();
+            long endTable = System.nanoTime();
+            int sliceTable = benchmark.byteSliceCountTable();
+            long endSliceTable = System.nanoTime();
+            int offHeapTable = benchmark.offHeapCountTable();
+            long endOffHeapTable = System.nanoTime();
+
+            System.out.println("Round " + round + ", " + operations + " increments:");
+            System.out.printf("  HashMap containsKey/get/put: %7.1f Mops/s (%d words)%n", operations * 1e3 / (endContainsGetPut - start), containsGetPut);
+            System.out.printf("  HashMap merge:               %7.1f Mops/s (%d words)%n", operations * 1e3 / (endMerge - endContainsGetPut), merge);
+            System.out.printf("  WordCountTable:              %7.1f Mops/s (%d words)%n", operations * 1e3 / (endTable - endMerge), table);
+            System.out.printf("  ByteSliceCountTable:         %7.1f Mops/s (%d words)%n", operations * 1e3 / (endSliceTable - endTable), sliceTable);
+            System.out.printf("  OffHeapCountTable:           %7.1f Mops/s (%d words)%n", operations * 1e3 / (endOffHeapTable - endSliceTable), offHeapTable);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package project.src.Bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import project.src.Slave.MapTask;
+import project.src.Slave.OffHeapCountTable;
+import project.src.Slave.ShuffleConnection;
+import project.src.Slave.SlaveInterface;
+import project.src.Slave.SlaveMetrics;
+import project.src.Slave.SplitAttempt;
+import project.src.Slave.SplitTokenizer;
+import project.src.Slave.WordCountTable;
+import project.src.Slave.Signals.SignalCodec;
+import project.src.Slave.Signals.WordCount;
+import step1.WordFrequencyCount;
+
+public class HotPathBenchmark {
+
+    private static final WordCount END_OF_WORDS = new WordCount(null, 0); // closes the queue drained by the shuffle of the map benchmark
+
+    private final Path corpusPath; // corpus of the map benchmarks
+    private final long corpusBytes;
+    private final int mapParallelism;
+    private final WordCount[] wordCounts; // word counts shuffled to a reducer, drawn from the same law as the corpus
+    private final byte[][] batches; // the same word counts as ATTEMPT_BATCH frame bodies
+    private final ArrayList<WordCount> distinctCounts = new ArrayList<>(); // the counts of the reducer, to sort in result order
+
+    public HotPathBenchmark(SyntheticCorpus corpus, Path corpusPath, int operations, int mapParallelism) throws IOException {
+        this.corpusPath = corpusPath;
+        this.corpusBytes = Files.size(corpusPath);
+        this.mapParallelism = mapParallelism;
+
+        String[] words = corpus.words(operations);
+        this.wordCounts = new WordCount[operations];
+        WordCountTable counts = new WordCountTable();
+        for (int i = 0; i < operations; i++) {
+            this.wordCounts[i] = new WordCount(words[i], 1);
+            counts.add(words[i], 1);
+        }
+        counts.forEach((word, count) -> this.distinctCounts.add(new WordCount(word, count)));
+
+        ArrayList<byte[]> batches = new ArrayList<>();
+        for (int from = 0; from < operations; from += SlaveInterface.SHUFFLE_BATCH_SIZE) {
+            batches.add(encodeBatch(this.wordCounts, from, Math.min(operations, from + SlaveInterface.SHUFFLE_BATCH_SIZE)));
+        }
+        this.batches = batches.toArray(new byte[0][]);
+    }
+
+    private static byte[] encodeBatch(WordCount[] wordCounts, int from, int to) throws IOException {
+        // Frame body of an ATTEMPT_BATCH, as written by ShuffleConnection.flushBatch, for split 0 and attempt 0
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(SignalCodec.ATTEMPT_BATCH);
+        SignalCodec.writeVarInt(body, 0);
+        SignalCodec.writeVarInt(body, 0);
+        SignalCodec.writeVarInt(body, to - from);
+        for (int i = from; i < to; i++) {
+            SignalCodec.writeWordCount(body, wordCounts[i]);
+        }
+        return body.toByteArray();
+    }
+
+    // NOTE: Map
+
+    public long step1Count() {
+        // The sequential count of step1, readLine and split("\\s+") into a table
+
+        return new WordFrequencyCount(this.corpusPath.toString()).countWordFrequencies().size();
+    }
+
+    public long slaveMap(int combinerCapacity) throws Exception {
+        // Map path of the Slave on the whole corpus: line-aligned chunks tokenized by MapTasks on the map pool, their word counts enqueued and drained by a shuffle thread; returns the sum of the counts
+
+        LinkedBlockingQueue<WordCount> wordsSplitten = new LinkedBlockingQueue<>(SlaveInterface.MAP_QUEUE_CAPACITY);
+        long[] shuffled = new long[1];
+        Thread shufflingThread = new Thread(() -> {
+            try {
+                WordCount wordCount;
+                while ((wordCount = wordsSplitten.take()) != END_OF_WORDS) {
+                    shuffled[0] += wordCount.getCount();
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        shufflingThread.start();
+
+        ForkJoinPool mapPool = new ForkJoinPool(this.mapParallelism);
+        SplitAttempt attempt = new SplitAttempt(0, 0, this.corpusBytes);
+        SlaveMetrics metrics = new SlaveMetrics();
+        ArrayList<MapTask> mapTasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(this.corpusPath, StandardOpenOption.READ)) {
+            long[] boundaries = SplitTokenizer.splitAtLines(channel, 0, this.corpusBytes, this.mapParallelism);
+            for (int i = 0; i + 1 < boundaries.length && boundaries[i + 1] > boundaries[i]; i++) {
+                MapTask mapTask = new MapTask(this.corpusPath, boundaries[i], boundaries[i + 1] - boundaries[i], combinerCapacity, attempt, metrics, wordCount -> {
+                    try {
+                        wordsSplitten.put(wordCount);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                mapTasks.add(mapTask);
+                mapPool.execute(mapTask);
+            }
+        }
+        for (MapTask mapTask : mapTasks) {
+            mapTask.join();
+        }
+        mapPool.shutdown();
+        wordsSplitten.put(END_OF_WORDS);
+        shufflingThread.join();
+        return shuffled[0];
+    }
+
+    // NOTE: Reduce
+
+    public long reduceOnHeap() throws IOException {
+        // Reducer path of the Slave with the String table: batches decoded in place, one String per word count
+
+        WordCountTable counts = new WordCountTable();
+        for (byte[] batch : this.batches) {
+            ShuffleConnection.decodeBatch(batch, (bytes, offset, length, count) -> counts.add(new String(bytes, offset, length, StandardCharsets.UTF_8), (int) count));
+        }
+        return counts.size();
+    }
+
+    public long reduceOffHeap() throws IOException {
+        // Reducer path of the Slave with the off-heap table, keyed by the bytes of the batches
+
+        OffHeapCountTable counts = new OffHeapCountTable();
+        try {
+            for (byte[] batch : this.batches) {
+                ShuffleConnection.decodeBatch(batch, counts::add);
+            }
+            return counts.size();
+        } finally {
+            counts.clear();
+        }
+    }
+
+    // NOTE: Codec
+
+    public long encodeDecodeFrames() throws IOException {
+        // One frame per word count, as on the result streams
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (WordCount wordCount : this.wordCounts) {
+            SignalCodec.writeFrame(outputStream, wordCount);
+        }
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        long checksum = 0;
+        Object signal;
+        while ((signal = SignalCodec.readFrame(inputStream)) != null) {
+            checksum += ((WordCount) signal).getCount();
+        }
+        return checksum;
+    }
+
+    public long encodeDecodeBatches() throws IOException {
+        // SHUFFLE_BATCH_SIZE word counts per frame, as on the shuffle streams; decoded without creating Strings
+
+        long[] checksum = new long[1];
+        for (int from = 0; from < this.wordCounts.length; from += SlaveInterface.SHUFFLE_BATCH_SIZE) {
+            byte[] batch = encodeBatch(this.wordCounts, from, Math.min(this.wordCounts.length, from + SlaveInterface.SHUFFLE_BATCH_SIZE));
+            ShuffleConnection.decodeBatch(batch, (bytes, offset, length, count) -> checksum[0] += count + length);
+        }
+        return checksum[0];
+    }
+
+    // NOTE: Results
+
+    public long sortResults() {
+        // Sort of the counts of a reducer before they are sent to the Master
+
+        ArrayList<WordCount> sortedCounts = new ArrayList<>(this.distinctCounts);
+        sortedCounts.sort(WordCount.RESULT_ORDER);
+        return sortedCounts.get(0).getCount();
+    }
+
+    public void run(BenchmarkHarness harness, String parameters) throws Exception {
+        double megabytes = this.corpusBytes / (1024.0 * 1024.0);
+        double wordCounts = this.wordCounts.length / 1e6;
+        harness.measure("step1.countWordFrequencies", parameters, megabytes, "MB/s", this::step1Count);
+        harness.measure("slave.map.combiner", parameters, megabytes, "MB/s", () -> slaveMap(100000));
+        harness.measure("slave.map.noCombiner", parameters, megabytes, "MB/s", () -> slaveMap(0));
+        harness.measure("slave.reduce.onHeap", parameters, wordCounts, "Mwords/s", this::reduceOnHeap);
+        harness.measure("slave.reduce.offHeap", parameters, wordCounts, "Mwords/s", this::reduceOffHeap);
+        harness.measure("codec.frames", parameters, wordCounts, "Mwords/s", this::encodeDecodeFrames);
+        harness.measure("codec.batches", parameters, wordCounts, "Mwords/s", this::encodeDecodeBatches);
+        harness.measure("slave.sortResults", parameters, this.distinctCounts.size() / 1e6, "Mwords/s", this::sortResults);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Every benchmark on a synthetic corpus for each combination of sizes (MB), vocabularies and skews, given as comma-separated lists; the results may be written to a CSV and compared to an earlier one
+        String[] sizes = (args.length > 0 ? args[0] : "64").split(",");
+        String[] vocabularies = (args.length > 1 ? args[1] : "100000").split(",");
+        String[] skews = (args.length > 2 ? args[2] : "0,1.0,1.2").split(",");
+        int operations = args.length > 3 ? Integer.parseInt(args[3]) : 2000000;
+        int warmups = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        int iterations = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+        Path csv = args.length > 6 ? Paths.get(args[6]) : null;
+        Path baseline = args.length > 7 ? Paths.get(args[7]) : null;
+        double tolerance = args.length > 8 ? Double.parseDouble(args[8]) : 0.1;
+        int mapParallelism = Runtime.getRuntime().availableProcessors();
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmups, iterations);
+        for (String size : sizes) {
+            for (String vocabulary : vocabularies) {
+                for (String skew : skews) {
+                    String parameters = "size=" + size + "MB vocabulary=" + vocabulary + " skew=" + skew;
+                    System.out.println(parameters + ":");
+                    SyntheticCorpus corpus = new SyntheticCorpus(Integer.parseInt(vocabulary), Double.parseDouble(skew), 42);
+                    Path path = Files.createTempFile("corpus", ".txt");
+                    try {
+                        corpus.write(path, Long.parseLong(size) * 1024 * 1024);
+                        new HotPathBenchmark(corpus, path, operations, mapParallelism).run(harness, parameters);
+                    } finally {
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+        }
+
+        if (csv != null) {
+            harness.writeCsv(csv);
+            System.out.println("Results written to " + csv);
+        }
+        if (baseline != null && harness.compare(baseline, tolerance) > 0) {
+            System.exit(1);
+        }
+        System.out.println("(checksum " + harness.getSink() + ")");
+    }
+}
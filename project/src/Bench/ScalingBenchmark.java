@@ -0,0 +1,152 @@
+package project.src.Bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import project.src.Master.JobScheduler;
+import project.src.Master.LocalCluster;
+import project.src.Master.Master;
+
+public class ScalingBenchmark {
+
+    public static final String CSV_HEADER = "size_mb,slaves,mean_ms,best_ms,speedup,efficiency,results_match";
+    public static final int BASE_PORT = 20000; // first port of the runs; the master of a run takes two ports and each of its slaves two more
+
+    private final Path workDirectory; // corpora, results and working directories of the slaves
+    private final int mapParallelism; // map threads of each slave
+    private final int repetitions; // runs of each configuration, their mean is kept
+    private final boolean daemons; // the runs of a configuration are consecutive jobs of the same slave daemons, instead of each launching its slaves
+    private final int portsPerRun;
+    private int runs = 0; // every run uses new ports, so that none is still in TIME_WAIT from the previous one
+    private final ArrayList<String> rows = new ArrayList<>();
+
+    public ScalingBenchmark(Path workDirectory, int maxSlaves, int mapParallelism, int repetitions, boolean daemons) {
+        this.workDirectory = workDirectory;
+        this.mapParallelism = mapParallelism;
+        this.repetitions = repetitions;
+        this.daemons = daemons;
+        this.portsPerRun = 2 * (maxSlaves + 1);
+    }
+
+    public long run(Path input, Path results, int slaves, LocalCluster daemonCluster, int job) throws IOException {
+        // One word count of the input by slaves local slaves, driven by an unchanged Master; returns its wall time in milliseconds, from the split of the input to the merge of the results
+        // Without daemonCluster, the run launches its own slaves; with it, the run is the given job of its daemons, which stay up
+
+        int basePort = BASE_PORT + this.portsPerRun * this.runs++;
+        Path runDirectory = this.workDirectory.resolve("run" + this.runs);
+        Files.createDirectories(runDirectory);
+
+        Master master = new Master(input.toString(), results.toString(), null, null, "", slaves);
+        master.setPorts(basePort, basePort + 1);
+        master.setMetricsPort(0);
+        LocalCluster cluster = daemonCluster != null ? null : new LocalCluster(runDirectory, basePort + 2);
+
+        long start = System.nanoTime();
+        try {
+            if (cluster != null) {
+                cluster.start(master, slaves, this.mapParallelism);
+            } else {
+                master.setJobId(job);
+                daemonCluster.addSlaves(master, slaves, this.mapParallelism);
+            }
+            master.splitInputData();
+            master.startSignalListeningThread();
+            master.startSignalHandlingThread();
+            master.runMapReduce();
+        } finally {
+            if (cluster != null) {
+                cluster.stop();
+            }
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    public void sweep(int sizeMb, int[] slaveCounts, SyntheticCorpus corpus) throws IOException {
+        // Run every number of slaves on the same corpus; the speedup and the efficiency are relative to the first number of slaves, whose results are the reference of the others
+
+        Path input = this.workDirectory.resolve("corpus" + sizeMb + ".txt");
+        corpus.write(input, (long) sizeMb * 1024 * 1024);
+        Path reference = null;
+        double referenceTime = 0;
+
+        for (int slaves : slaveCounts) {
+            Path results = this.workDirectory.resolve("results" + sizeMb + "_" + slaves + ".txt");
+            double mean = 0;
+            long best = Long.MAX_VALUE;
+            LocalCluster daemonCluster = null;
+            if (this.daemons) {
+                // The daemons take the slave ports of the first run of the configuration, each run keeping its own master ports
+                int basePort = BASE_PORT + this.portsPerRun * this.runs;
+                daemonCluster = new LocalCluster(this.workDirectory.resolve("daemons" + sizeMb + "_" + slaves), basePort + 2);
+                daemonCluster.startDaemons(slaves, this.mapParallelism);
+            }
+            try {
+                for (int i = 0; i < this.repetitions; i++) {
+                    long time = run(input, results, slaves, daemonCluster, JobScheduler.DEPLOY_JOB + 1 + i); // job ids start after the one of the deployer, like the submitted ones
+                    mean += time;
+                    best = Math.min(best, time);
+                }
+            } finally {
+                if (daemonCluster != null) {
+                    daemonCluster.stop();
+                }
+            }
+            mean /= this.repetitions;
+
+            if (reference == null) {
+                reference = results;
+                referenceTime = mean;
+            }
+            double speedup = referenceTime / mean;
+            double efficiency = speedup * slaveCounts[0] / slaves;
+            boolean resultsMatch = Files.mismatch(reference, results) == -1;
+            this.rows.add(String.format("%d,%d,%.1f,%d,%.3f,%.3f,%b", sizeMb, slaves, mean, best, speedup, efficiency, resultsMatch));
+            System.out.printf("size=%dMB slaves=%d: %.1f ms (best %d ms), speedup %.2f, efficiency %.2f%s%n", sizeMb, slaves, mean, best, speedup, efficiency, resultsMatch ? "" : ", RESULTS DIFFER");
+        }
+    }
+
+    public void writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (String row : this.rows) {
+                writer.write(row);
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Strong scaling of the whole word count over local slaves: for each input size (MB), every number of slaves, given as comma-separated lists
+        String[] slaveCountsArg = (args.length > 0 ? args[0] : "1,2,4").split(",");
+        String[] sizes = (args.length > 1 ? args[1] : "64,256").split(",");
+        int mapParallelism = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int vocabulary = args.length > 3 ? Integer.parseInt(args[3]) : 100000;
+        double skew = args.length > 4 ? Double.parseDouble(args[4]) : 1.0;
+        int repetitions = args.length > 5 ? Integer.parseInt(args[5]) : 3;
+        Path csv = Paths.get(args.length > 6 ? args[6] : "scaling.csv");
+        Path workDirectory = (args.length > 7 ? Paths.get(args[7]) : Files.createTempDirectory("scaling")).toAbsolutePath();
+        boolean daemons = args.length > 8 && Boolean.parseBoolean(args[8]);
+
+        int[] slaveCounts = new int[slaveCountsArg.length];
+        int maxSlaves = 0;
+        for (int i = 0; i < slaveCounts.length; i++) {
+            slaveCounts[i] = Integer.parseInt(slaveCountsArg[i]);
+            maxSlaves = Math.max(maxSlaves, slaveCounts[i]);
+        }
+
+        Files.createDirectories(workDirectory);
+        ScalingBenchmark benchmark = new ScalingBenchmark(workDirectory, maxSlaves, mapParallelism, repetitions, daemons);
+        for (String size : sizes) {
+            benchmark.sweep(Integer.parseInt(size), slaveCounts, new SyntheticCorpus(vocabulary, skew, 42));
+        }
+        benchmark.writeCsv(csv);
+        System.out.println("Results written to " + csv + ", runs in " + workDirectory);
+        System.exit(0); // the signal handling of the last master may still be draining its status port
+    }
+}
@@ -0,0 +1,110 @@
+package project.src.Bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import project.src.Master.JobScheduler;
+import project.src.Master.LocalCluster;
+import project.src.Master.ScheduledJob;
+
+public class SchedulerBenchmark {
+
+    public static final String CSV_HEADER = "slots_per_slave,job,size_mb,slots,wait_ms,run_ms,turnaround_ms,results_match";
+    public static final int DAEMON_BASE_PORT = 30000; // first port of the daemons of a configuration, each configuration takes PORTS_PER_CONFIGURATION ports from there
+    public static final int JOB_BASE_PORT = 40000; // first port of the masters of the jobs of a configuration, likewise
+    public static final int PORTS_PER_CONFIGURATION = 200;
+
+    private final Path workDirectory; // corpora, results and working directories of the daemons
+    private final int slaves; // local slave daemons
+    private final int mapParallelism; // map threads of each job on each daemon
+    private int configurations = 0;
+    private final HashMap<String, Path> referenceResults = new HashMap<>(); // results of each kind of job in the first configuration, the reference of the others
+    private final ArrayList<String> rows = new ArrayList<>();
+
+    public SchedulerBenchmark(Path workDirectory, int slaves, int mapParallelism) {
+        this.workDirectory = workDirectory;
+        this.slaves = slaves;
+        this.mapParallelism = mapParallelism;
+    }
+
+    public void run(int slotsPerSlave, Path bigInput, int bigMb, Path smallInput, int smallMb, int smallJobs) throws IOException, InterruptedException {
+        // A big job over all the slaves, then small jobs of one slave each, submitted right after it; with one slot per slave the small jobs wait for the big one, with more they run next to it
+
+        int configuration = this.configurations++;
+        LocalCluster cluster = new LocalCluster(this.workDirectory.resolve("daemons_slots" + slotsPerSlave), DAEMON_BASE_PORT + PORTS_PER_CONFIGURATION * configuration);
+        cluster.startDaemons(this.slaves, this.mapParallelism);
+        JobScheduler scheduler = new JobScheduler(cluster.getSlaves(this.slaves), slotsPerSlave, "");
+        scheduler.setBasePort(JOB_BASE_PORT + PORTS_PER_CONFIGURATION * configuration);
+        scheduler.setMetricsPort(0);
+
+        HashMap<ScheduledJob, String> kinds = new HashMap<>();
+        long start = System.currentTimeMillis();
+        try {
+            kinds.put(scheduler.submit(bigInput.toString(), this.workDirectory.resolve("results_slots" + slotsPerSlave + "_big.txt").toString(), this.slaves, 1), "big");
+            for (int i = 0; i < smallJobs; i++) {
+                kinds.put(scheduler.submit(smallInput.toString(), this.workDirectory.resolve("results_slots" + slotsPerSlave + "_small" + i + ".txt").toString(), 1, 1), "small");
+            }
+            scheduler.awaitJobs();
+        } finally {
+            cluster.stop();
+        }
+        long makespan = System.currentTimeMillis() - start;
+
+        double smallTurnaround = 0;
+        for (ScheduledJob job : scheduler.getJobs()) {
+            String kind = kinds.get(job);
+            Path results = Paths.get(job.getOutputResultsFilename());
+            Path reference = this.referenceResults.putIfAbsent(kind, results);
+            boolean resultsMatch = job.getState() == ScheduledJob.State.DONE && (reference == null || Files.mismatch(reference, results) == -1);
+            long turnaround = job.getWaitTime() + job.getRunTime();
+            if (kind.equals("small")) {
+                smallTurnaround += (double) turnaround / smallJobs;
+            }
+            this.rows.add(String.format("%d,%d,%d,%d,%d,%d,%d,%b", slotsPerSlave, job.getId(), kind.equals("big") ? bigMb : smallMb, job.getSlaves().size(), job.getWaitTime(), job.getRunTime(), turnaround, resultsMatch));
+        }
+        System.out.printf("slots per slave=%d: makespan %d ms, mean turnaround of the small jobs %.0f ms%n", slotsPerSlave, makespan, smallTurnaround);
+    }
+
+    public void writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (String row : this.rows) {
+                writer.write(row);
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Turnaround of small jobs submitted behind a big one, for each number of slots per slave, given as a comma-separated list
+        String[] slotsArg = (args.length > 0 ? args[0] : "1,2").split(",");
+        int slaves = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int bigMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int smallMb = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        int smallJobs = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+        int mapParallelism = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        Path csv = Paths.get(args.length > 6 ? args[6] : "scheduler.csv");
+        Path workDirectory = (args.length > 7 ? Paths.get(args[7]) : Files.createTempDirectory("scheduler")).toAbsolutePath();
+
+        Files.createDirectories(workDirectory);
+        Path bigInput = workDirectory.resolve("corpus" + bigMb + ".txt");
+        new SyntheticCorpus(100000, 1.0, 42).write(bigInput, (long) bigMb * 1024 * 1024);
+        Path smallInput = workDirectory.resolve("corpus" + smallMb + ".txt");
+        new SyntheticCorpus(100000, 1.0, 43).write(smallInput, (long) smallMb * 1024 * 1024);
+
+        SchedulerBenchmark benchmark = new SchedulerBenchmark(workDirectory, slaves, mapParallelism);
+        for (String slots : slotsArg) {
+            benchmark.run(Integer.parseInt(slots), bigInput, bigMb, smallInput, smallMb, smallJobs);
+        }
+        benchmark.writeCsv(csv);
+        System.out.println("Results written to " + csv + ", runs in " + workDirectory);
+        System.exit(0); // the signal handling of the last masters may still be draining their status ports
+    }
+}
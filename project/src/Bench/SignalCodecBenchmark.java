@@ -0,0 +1,243 @@
+package project.src.Bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import project.src.Slave.ShuffleConnection;
+import project.src.Slave.Signals.CommandSignal;
+import project.src.Slave.Signals.FailureSignal;
+import project.src.Slave.Signals.Heartbeat;
+import project.src.Slave.Signals.PartitionTable;
+import project.src.Slave.Signals.PhaseTimes;
+import project.src.Slave.Signals.SignalCodec;
+import project.src.Slave.Signals.SlaveCommand;
+import project.src.Slave.Signals.SlaveStatus;
+import project.src.Slave.Signals.SplitProgress;
+import project.src.Slave.Signals.StatusSignal;
+import project.src.Slave.Signals.WordCount;
+
+public class SignalCodecBenchmark {
+
+    private final WordCount[] wordCounts;
+
+    public SignalCodecBenchmark(int messages, int vocabulary, long seed) {
+        Random random = new Random(seed);
+        this.wordCounts = new WordCount[messages];
+        for (int i = 0; i < messages; i++) {
+            this.wordCounts[i] = new WordCount("word" + random.nextInt(vocabulary), 1 + random.nextInt(1000));
+        }
+    }
+
+    public static boolean checkRoundTrips() throws IOException {
+        // Encode and decode one signal of each kind, every command parameter tag and the frames written on the sockets, and check that nothing was lost
+
+        boolean ok = true;
+
+        WordCount wordCount = (WordCount) roundTrip(new WordCount("fonctionnaire", 9));
+        ok &= check("WORD_COUNT", wordCount.getWord().equals("fonctionnaire") && wordCount.getCount() == 9);
+
+        WordCount[] batch = (WordCount[]) roundTrip(new WordCount[] {new WordCount("sant\u00e9", 14423), new WordCount("", 1)});
+        ok &= check("WORD_COUNT_BATCH", batch.length == 2 && batch[0].getWord().equals("sant\u00e9") && batch[0].getCount() == 14423 && batch[1].getWord().isEmpty());
+
+        StatusSignal status = (StatusSignal) roundTrip(new StatusSignal(SlaveStatus.REDUCE_DONE, "tp-5b01-11"));
+        ok &= check("STATUS", status.getStatus() == SlaveStatus.REDUCE_DONE && "tp-5b01-11".equals(status.getSender()));
+
+        // COMMAND, with every parameter tag
+        ArrayList<String> slaves = new ArrayList<>();
+        slaves.add("tp-5b01-11");
+        slaves.add("tp-5b01-12");
+        PartitionTable table = new PartitionTable();
+        table.put("de", 3);
+        table.put("la", 2);
+        CommandSignal command = (CommandSignal) roundTrip(SlaveCommand.SLAVES_LIST.with(slaves, table));
+        ok &= check("SLAVES_LIST", command.getCommand() == SlaveCommand.SLAVES_LIST && slaves.equals(command.getParameters()[0]) && table.getSpreads().equals(((PartitionTable) command.getParameters()[1]).getSpreads()));
+
+        command = (CommandSignal) roundTrip(SlaveCommand.MASTER_INFO.with(InetAddress.getLoopbackAddress(), 9999, "tp-5b01-11"));
+        ok &= check("MASTER_INFO", InetAddress.getLoopbackAddress().equals(command.getParameters()[0]) && Integer.valueOf(9999).equals(command.getParameters()[1]) && "tp-5b01-11".equals(command.getParameters()[2]));
+
+        command = (CommandSignal) roundTrip(SlaveCommand.YOUR_INFO.with("tp-5b01-11", true, ".enst.fr"));
+        ok &= check("YOUR_INFO", Boolean.TRUE.equals(command.getParameters()[1]) && ".enst.fr".equals(command.getParameters()[2]));
+
+        command = (CommandSignal) roundTrip(SlaveCommand.INTERCONNECT.with(true, 3L << 32, 12, false));
+        ok &= check("INTERCONNECT", Long.valueOf(3L << 32).equals(command.getParameters()[1]) && Integer.valueOf(12).equals(command.getParameters()[2]) && Boolean.FALSE.equals(command.getParameters()[3]));
+
+        command = (CommandSignal) roundTrip(SlaveCommand.SPLIT.with(4, 5000000000L, 17));
+        ok &= check("SPLIT", command.getCommand() == SlaveCommand.SPLIT && Long.valueOf(5000000000L).equals(command.getParameters()[1]) && Integer.valueOf(17).equals(command.getParameters()[2]));
+
+        command = (CommandSignal) roundTrip(SlaveCommand.COMMIT_SPLIT.with(4, 17));
+        ok &= check("COMMIT_SPLIT", command.getCommand() == SlaveCommand.COMMIT_SPLIT && Integer.valueOf(17).equals(command.getParameters()[1]));
+
+        command = (CommandSignal) roundTrip(SlaveCommand.ABORT.with());
+        ok &= check("ABORT", command.getCommand() == SlaveCommand.ABORT && command.getParameters().length == 0);
+
+        // SPLIT_PROGRESS, with both flags
+        SplitProgress progress = (SplitProgress) roundTrip(new SplitProgress("tp-5b01-11", 4, 17, 3000000000L, 5000000000L, true, false));
+        ok &= check("SPLIT_PROGRESS ended", progress.getSplit() == 4 && progress.getAttempt() == 17 && progress.getMappedBytes() == 3000000000L && progress.getLength() == 5000000000L && progress.isEnded() && !progress.isFailed());
+        progress = (SplitProgress) roundTrip(new SplitProgress("tp-5b01-11", 4, 18, 12, 5000000000L, false, true));
+        ok &= check("SPLIT_PROGRESS failed", "tp-5b01-11".equals(progress.getSender()) && !progress.isEnded() && progress.isFailed());
+
+        LinkedHashMap<String, Long> recordsSent = new LinkedHashMap<>();
+        recordsSent.put("tp-5b01-11", 7000000000L);
+        recordsSent.put("tp-5b01-12", 0L);
+        LinkedHashMap<String, Long> recordsReceived = new LinkedHashMap<>();
+        recordsReceived.put("tp-5b01-12", 42L);
+        Heartbeat heartbeat = (Heartbeat) roundTrip(new Heartbeat("tp-5b01-11", 1L << 40, 1L << 39, 123456789L, recordsSent, recordsReceived, 65536, 3, 1L << 30, 1L << 33));
+        ok &= check("HEARTBEAT", "tp-5b01-11".equals(heartbeat.getSender()) && heartbeat.getBytesRead() == 1L << 40 && heartbeat.getBytesMapped() == 1L << 39 && heartbeat.getTokens() == 123456789L
+            && heartbeat.getShuffleQueueDepth() == 65536 && heartbeat.getCommandQueueDepth() == 3 && heartbeat.getHeapUsed() == 1L << 30 && heartbeat.getHeapMax() == 1L << 33
+            && recordsSent.equals(heartbeat.getRecordsSent()) && recordsReceived.equals(heartbeat.getRecordsReceived()));
+
+        LinkedHashMap<String, Long> durations = new LinkedHashMap<>();
+        durations.put("map", 1234L);
+        durations.put("shuffle", 0L);
+        PhaseTimes phaseTimes = (PhaseTimes) roundTrip(new PhaseTimes("tp-5b01-12", durations));
+        ok &= check("PHASE_TIMES", "tp-5b01-12".equals(phaseTimes.getSender()) && durations.equals(phaseTimes.getDurations()));
+
+        FailureSignal failure = (FailureSignal) roundTrip(new FailureSignal("tp-5b01-12", "Shuffle connection with slave tp-5b01-11 failed"));
+        ok &= check("FAILURE", "tp-5b01-12".equals(failure.getSender()) && "Shuffle connection with slave tp-5b01-11 failed".equals(failure.getReason()));
+
+        // JOB_HEADER and ARTIFACT, read from a stream like the daemons do
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        SignalCodec.writeJobHeader(headers, 300);
+        SignalCodec.writeArtifact(headers, "");
+        SignalCodec.writeArtifact(headers, "9f86d081884c7d65");
+        ByteArrayInputStream headersStream = new ByteArrayInputStream(headers.toByteArray());
+        ok &= check("JOB_HEADER", SignalCodec.readJobHeader(headersStream) == 300);
+        ok &= check("ARTIFACT request", SignalCodec.readJobHeader(headersStream) == SignalCodec.ARTIFACT_REQUEST);
+        ok &= check("ARTIFACT answer", "9f86d081884c7d65".equals(SignalCodec.readArtifact(headersStream)) && SignalCodec.readJobHeader(headersStream) == -1);
+
+        ok &= checkShuffleStream();
+        return ok;
+    }
+
+    public static boolean checkShuffleStream() throws IOException {
+        // A shuffle connection of a daemon over the loopback: JOB_HEADER, SHUFFLE_HELLO, the ATTEMPT_BATCH frames of an attempt and its ATTEMPT_END
+
+        boolean ok = true;
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            ShuffleConnection connection = new ShuffleConnection("tp-5b01-11", 7, InetAddress.getLoopbackAddress(), serverSocket.getLocalPort(), 2, 1000);
+            connection.startAttempt(3, 5);
+            connection.send(new WordCount("sant\u00e9", 14423));
+            connection.send(new WordCount("", 1));
+            connection.send(new WordCount("fonctionnaire", 9));
+            connection.endAttempt();
+            connection.close();
+
+            try (Socket socket = serverSocket.accept()) {
+                InputStream inputStream = socket.getInputStream();
+                ok &= check("shuffle JOB_HEADER", SignalCodec.readJobHeader(inputStream) == 7);
+                ok &= check("SHUFFLE_HELLO", "tp-5b01-11".equals(ShuffleConnection.readSender(SignalCodec.readFrameBody(inputStream))));
+
+                ArrayList<String> words = new ArrayList<>();
+                long total = 0;
+                int batches = 0;
+                byte[] body;
+                while ((body = SignalCodec.readFrameBody(inputStream)) != null && body[0] == SignalCodec.ATTEMPT_BATCH) {
+                    int[] attempt = ShuffleConnection.readAttempt(body);
+                    ok &= check("ATTEMPT_BATCH attempt", attempt[0] == 3 && attempt[1] == 5 && ShuffleConnection.batchWords(body) == (batches == 0 ? 2 : 1));
+                    long[] count = new long[1];
+                    ShuffleConnection.decodeBatch(body, (bytes, offset, length, wordCount) -> {
+                        words.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+                        count[0] += wordCount;
+                    });
+                    total += count[0];
+                    batches++;
+                }
+                ok &= check("ATTEMPT_BATCH words", batches == 2 && Arrays.asList("sant\u00e9", "", "fonctionnaire").equals(words) && total == 14423 + 1 + 9);
+                ok &= check("ATTEMPT_END", body != null && body[0] == SignalCodec.ATTEMPT_END && Arrays.equals(ShuffleConnection.readAttempt(body), new int[] {3, 5}) && ShuffleConnection.batchWords(body) == 0);
+                ok &= check("shuffle end of stream", SignalCodec.readFrameBody(inputStream) == null);
+            }
+        }
+        return ok;
+    }
+
+    private static Object roundTrip(Object signal) throws IOException {
+        // The signal decoded from its frame, read from a stream like on the sockets
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SignalCodec.writeFrame(outputStream, signal);
+        return SignalCodec.readFrame(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    private static boolean check(String frame, boolean passed) {
+        if (!passed) {
+            System.out.println("  Round trip of " + frame + " FAILED");
+        }
+        return passed;
+    }
+
+    public long[] runCodec() throws IOException {
+        // Returns {total bytes, checksum}, one frame per message as sent on the sockets
+
+        long bytes = 0;
+        long checksum = 0;
+        for (WordCount wordCount : this.wordCounts) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            SignalCodec.writeFrame(outputStream, wordCount);
+            byte[] frame = outputStream.toByteArray();
+            bytes += frame.length;
+            WordCount decoded = (WordCount) SignalCodec.readFrame(new ByteArrayInputStream(frame));
+            checksum += decoded.getCount();
+        }
+        return new long[] {bytes, checksum};
+    }
+
+    public long[] runSerialization() throws IOException, ClassNotFoundException {
+        // Returns {total bytes, checksum}, one object stream per message as the sockets used to do
+
+        long bytes = 0;
+        long checksum = 0;
+        for (WordCount wordCount : this.wordCounts) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+                objectOutputStream.writeObject(wordCount);
+            }
+            byte[] frame = outputStream.toByteArray();
+            bytes += frame.length;
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(frame))) {
+                checksum += ((WordCount) objectInputStream.readObject()).getCount();
+            }
+        }
+        return new long[] {bytes, checksum};
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int vocabulary = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        if (!checkRoundTrips()) {
+            System.out.println("Round trips: FAILED");
+            System.exit(1);
+        }
+        System.out.println("Round trips: OK");
+
+        SignalCodecBenchmark benchmark = new SignalCodecBenchmark(messages, vocabulary, 42);
+        for (int round = 1; round <= rounds; round++) {
+            long startCodec = System.nanoTime();
+            long[] codec = benchmark.runCodec();
+            long endCodec = System.nanoTime();
+            long[] serialization = benchmark.runSerialization();
+            long endSerialization = System.nanoTime();
+
+            System.out.println("Round " + round + " (" + messages + " WordCount messages):");
+            System.out.printf("  codec:         %6.1f bytes/message, %10.0f messages/s%n",
+                (double) codec[0] / messages, messages * 1e9 / (endCodec - startCodec));
+            System.out.printf("  serialization: %6.1f bytes/message, %10.0f messages/s%n",
+                (double) serialization[0] / messages, messages * 1e9 / (endSerialization - endCodec));
+            if (codec[1] != serialization[1]) {
+                System.out.println("  Checksums differ: " + codec[1] + " != " + serialization[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package project.src.Bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class SyntheticCorpus {
+
+    private final String[] vocabulary;
+    private final double[] cumulative; // cumulative Zipf probabilities of the vocabulary
+    private final Random random;
+
+    public SyntheticCorpus(int vocabularySize, double skew, long seed) {
+        // Words drawn from a Zipf law of exponent skew over vocabularySize words (skew 0 is uniform)
+
+        this.random = new Random(seed);
+        this.vocabulary = new String[vocabularySize];
+        this.cumulative = new double[vocabularySize];
+        double total = 0;
+        for (int i = 0; i < vocabularySize; i++) {
+            this.vocabulary[i] = randomWord(i);
+            total += 1 / Math.pow(i + 1, skew);
+            this.cumulative[i] = total;
+        }
+        for (int i = 0; i < vocabularySize; i++) {
+            this.cumulative[i] /= total;
+        }
+    }
+
+    public String nextWord() {
+        double u = this.random.nextDouble();
+        int low = 0;
+        int high = this.cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.cumulative[middle] < u) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return this.vocabulary[low];
+    }
+
+    public String[] words(int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = nextWord();
+        }
+        return words;
+    }
+
+    public void write(Path path, long bytes) throws IOException {
+        // Write lines of about 80 characters until the file reaches the given size
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            long written = 0;
+            int lineLength = 0;
+            while (written < bytes) {
+                String word = nextWord();
+                if (lineLength > 0) {
+                    if (lineLength + word.length() >= 80) {
+                        writer.newLine();
+                        lineLength = 0;
+                    } else {
+                        writer.write(' ');
+                        lineLength++;
+                    }
+                    written++;
+                }
+                writer.write(word);
+                lineLength += word.length();
+                written += word.length();
+            }
+            writer.newLine();
+        }
+    }
+
+    private String randomWord(int index) {
+        // Short words for the frequent ranks, as in natural text, with a suffix keeping them distinct
+        StringBuilder word = new StringBuilder();
+        int length = 2 + Math.min(10, (int) Math.log(index + 2)) + this.random.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + this.random.nextInt(26)));
+        }
+        return word.append(Integer.toString(index, 36)).toString();
+    }
+}
@@ -0,0 +1,93 @@
+package project.src.Bench;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+
+import project.src.Slave.SplitTokenizer;
+import project.src.Slave.WordInterner;
+
+public class TokenizerBenchmark {
+
+    private final Path path;
+
+    public TokenizerBenchmark(Path path) {
+        this.path = path;
+    }
+
+    public long readLineSplit(String regex, boolean count) throws IOException {
+        // Previous map path of the Slave (regex " ") and of step1 (regex "\\s+"), counting the words as the combiner does if count; returns the number of tokens
+
+        HashMap<String, Integer> counts = new HashMap<>();
+        long tokens = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(this.path.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String word : line.split(regex)) {
+                    if (!word.isEmpty()) {
+                        if (count) {
+                            counts.merge(word, 1, Integer::sum);
+                        }
+                        tokens++;
+                    }
+                }
+            }
+        }
+        return tokens;
+    }
+
+    public long mappedTokenizer(boolean count) throws IOException {
+        // Current map path of the Slave, interning the words and counting them as the combiner does if count; returns the number of tokens
+
+        HashMap<String, Integer> counts = new HashMap<>();
+        WordInterner interner = new WordInterner();
+        long[] tokens = new long[1];
+        new SplitTokenizer().tokenize(this.path, (bytes, offset, length, hash) -> {
+            if (count) {
+                counts.merge(interner.intern(bytes, offset, length, hash), 1, Integer::sum);
+            }
+            tokens[0]++;
+        });
+        return tokens[0];
+    }
+
+    public static void main(String[] args) throws IOException {
+        long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        int vocabulary = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        double skew = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        Path path;
+        if (args.length > 4) {
+            path = Paths.get(args[4]);
+        } else {
+            path = Files.createTempFile("corpus", ".txt");
+            path.toFile().deleteOnExit();
+            new SyntheticCorpus(vocabulary, skew, 42).write(path, megabytes * 1024 * 1024);
+        }
+        double size = Files.size(path) / (1024.0 * 1024.0);
+        System.out.printf("Corpus %s: %.1f MB%n", path, size);
+
+        TokenizerBenchmark benchmark = new TokenizerBenchmark(path);
+        for (int round = 1; round <= rounds; round++) {
+            for (boolean count : new boolean[] {false, true}) {
+                long start = System.nanoTime();
+                long splitSpace = benchmark.readLineSplit(" ", count);
+                long endSplitSpace = System.nanoTime();
+                long splitRegex = benchmark.readLineSplit("\\s+", count);
+                long endSplitRegex = System.nanoTime();
+                long mapped = benchmark.mappedTokenizer(count);
+                long endMapped = System.nanoTime();
+
+                System.out.println("Round " + round + (count ? ", tokenize and count:" : ", tokenize only:"));
+                System.out.printf("  readLine + split(\" \"):   %7.1f MB/s (%d tokens)%n", size * 1e9 / (endSplitSpace - start), splitSpace);
+                System.out.printf("  readLine + split(\"\\\\s+\"): %7.1f MB/s (%d tokens)%n", size * 1e9 / (endSplitRegex - endSplitSpace), splitRegex);
+                System.out.printf("  mapped tokenizer:         %7.1f MB/s (%d tokens)%n", size * 1e9 / (endMapped - endSplitRegex), mapped);
+            }
+        }
+    }
+}
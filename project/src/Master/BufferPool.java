@@ -0,0 +1,43 @@
+package project.src.Master;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class BufferPool {
+    /* NOTE: Attributes */
+
+    private final int bufferSize; // capacity of every pooled buffer
+    private final int maxPooled; // max number of free buffers kept for reuse
+    private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    // NOTE: Constructor
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /* NOTE: Methods */
+
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    public ByteBuffer acquire() {
+        // Reuse a free direct buffer if there is one, allocate a new one otherwise
+
+        ByteBuffer buffer = this.freeBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(this.bufferSize);
+        }
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        // Give back a buffer obtained with acquire; buffers of another size are left to the GC
+
+        if (buffer.isDirect() && buffer.capacity() == this.bufferSize && this.freeBuffers.size() < this.maxPooled) {
+            buffer.clear();
+            this.freeBuffers.add(buffer);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package project.src.Master;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class JobScheduler {
+    /* NOTE: Attributes */
+
+    public static final int SLOTS_PER_SLAVE = 2; // Default number of jobs a slave daemon runs at once, each with its own state and map threads
+    public static final int JOB_BASE_PORT = 10000; // Default first port of the masters of the jobs: the one of job i listens to statuses on base + 2i, and to results on the next port
+    public static final long JOB_TIMEOUT = 3600000; // Default time in milliseconds a job may run, after which it is aborted and its slots are given back
+    public static final long JOB_ABORT_TIMEOUT = 30000; // Time in milliseconds given to the master of an aborted job to close its ports and stop its threads
+    public static final int DEPLOY_JOB = 0; // Job id of the master deploying the daemons, the submitted jobs are numbered from 1
+    public static final int METRICS_PORT = 9200; // Default port of the HTTP endpoint serving the slots and the queue in Prometheus text format (0 disables it)
+
+    private final List<String> slaves; // slave daemons of the cluster, "host" or "host:statusPort:shufflePort"
+    private final int slotsPerSlave; // jobs each slave runs at once
+    private final String domain; // domain of the slaves, for the masters of the jobs
+    private int basePort = JOB_BASE_PORT;
+    private int metricsPort = METRICS_PORT;
+    private final HashMap<String, Integer> usedSlots = new HashMap<>(); // slots of each slave taken by the running jobs
+    private final PriorityQueue<ScheduledJob> queue = new PriorityQueue<>(Comparator.comparingInt(ScheduledJob::getPriority).reversed().thenComparingInt(ScheduledJob::getId)); // queued jobs, higher priorities first, then in submission order
+    private final ArrayList<ScheduledJob> jobs = new ArrayList<>(); // all the submitted jobs, in submission order
+    private int nextJobId = DEPLOY_JOB + 1;
+    private HttpServer server;
+
+    // NOTE: Constructor
+    public JobScheduler(List<String> slaves, int slotsPerSlave, String domain) {
+        this.slaves = new ArrayList<>(slaves);
+        this.slotsPerSlave = slotsPerSlave;
+        this.domain = domain;
+        for (String slave : this.slaves) {
+            this.usedSlots.put(slave, 0);
+        }
+    }
+
+    /* NOTE: Methods */
+
+    public ScheduledJob submit(String inputDataFilename, String outputResultsFilename, int parallelism, int priority) {
+        return submit(inputDataFilename, outputResultsFilename, parallelism, priority, JOB_TIMEOUT);
+    }
+
+    public synchronized ScheduledJob submit(String inputDataFilename, String outputResultsFilename, int parallelism, int priority, long timeout) {
+        // Queue a job, which starts as soon as slots are free for it, and fails if it runs longer than timeout
+
+        ScheduledJob job = new ScheduledJob(this.nextJobId++, inputDataFilename, outputResultsFilename, parallelism, priority, timeout);
+        this.jobs.add(job);
+        this.queue.add(job);
+        System.out.println("Submitted " + job);
+        schedule();
+        return job;
+    }
+
+    private void schedule() {
+        // Start the queued jobs in order while a slave has a free slot; each job gets at most its fair share of the slots, weighted by its priority, so that a big job leaves room for the jobs after it
+        // A job uses one slot on each of its slaves, taken on the least loaded slaves; a job is never preempted, the slots come back when it ends
+
+        while (!this.queue.isEmpty()) {
+            ArrayList<String> freeSlaves = new ArrayList<>();
+            for (String slave : this.slaves) {
+                if (this.usedSlots.get(slave) < this.slotsPerSlave) {
+                    freeSlaves.add(slave);
+                }
+            }
+            if (freeSlaves.isEmpty()) {
+                break;
+            }
+            freeSlaves.sort(Comparator.comparingInt(this.usedSlots::get)); // stable, the slaves keep their order among equally loaded ones
+
+            ScheduledJob job = this.queue.poll();
+            int granted = Math.min(Math.min(job.getParallelism(), fairShare(job)), freeSlaves.size());
+            List<String> jobSlaves = new ArrayList<>(freeSlaves.subList(0, granted));
+            for (String slave : jobSlaves) {
+                this.usedSlots.merge(slave, 1, Integer::sum);
+            }
+            job.start(jobSlaves);
+            System.out.println("Starting " + job + " on " + granted + " slots: " + jobSlaves);
+
+            Thread jobThread = new Thread(() -> {
+                boolean succeeded = runJob(job);
+                release(job, succeeded);
+            });
+            jobThread.start();
+        }
+        printStatus();
+    }
+
+    private int fairShare(ScheduledJob job) {
+        // Slots of the cluster times the share of the priority of the job among the ones of the running and queued jobs, at least one slot
+
+        int totalPriority = job.getPriority();
+        for (ScheduledJob other : this.jobs) {
+            if (other != job && (other.getState() == ScheduledJob.State.RUNNING || other.getState() == ScheduledJob.State.QUEUED)) {
+                totalPriority += other.getPriority();
+            }
+        }
+        return Math.max(1, this.slaves.size() * this.slotsPerSlave * job.getPriority() / totalPriority);
+    }
+
+    private boolean runJob(ScheduledJob job) {
+        // A master of its own drives the job on its slaves, as a job of their daemons, with its own ports; returns false if it failed or did not end before its deadline
+        // The master handles most of its errors by logging them and waiting for the slaves, so a failed job would never end: past the deadline, it is aborted, so that the daemons free the job and the master closes its ports, before its slots are given back
+
+        Master master = new Master(job.getInputDataFilename(), job.getOutputResultsFilename(), null, null, this.domain, job.getSlaves().size());
+        master.setJobId(job.getId());
+        master.setPorts(this.basePort + 2 * job.getId(), this.basePort + 2 * job.getId() + 1);
+        master.setMetricsPort(0);
+        for (String slave : job.getSlaves()) {
+            master.addSlave(slave, null);
+        }
+
+        AtomicBoolean ended = new AtomicBoolean(false);
+        Thread masterThread = new Thread(() -> {
+            try {
+                master.initStatusLatches();
+                master.splitInputData();
+                master.startSignalListeningThread();
+                master.startSignalHandlingThread();
+                master.runMapReduce();
+                ended.set(true);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+        masterThread.setDaemon(true);
+        masterThread.start();
+        try {
+            masterThread.join(job.getTimeout());
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        if (masterThread.isAlive()) {
+            master.abortJob(job + " did not end within " + job.getTimeout() + " ms");
+            try {
+                masterThread.join(JOB_ABORT_TIMEOUT);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            if (masterThread.isAlive()) {
+                System.out.println("The master of " + job + " is still stopping after " + JOB_ABORT_TIMEOUT + " ms, its slots are given back anyway");
+            }
+            return false;
+        }
+        return ended.get();
+    }
+
+    private synchronized void release(ScheduledJob job, boolean succeeded) {
+        job.end(succeeded);
+        for (String slave : job.getSlaves()) {
+            this.usedSlots.merge(slave, -1, Integer::sum);
+        }
+        System.out.println((succeeded ? "Finished " : "Failed ") + job + " in " + job.getRunTime() + " ms, after " + job.getWaitTime() + " ms in the queue");
+        schedule();
+        notifyAll();
+    }
+
+    public synchronized void awaitJobs() throws InterruptedException {
+        // Wait until every submitted job has ended
+
+        while (!this.queue.isEmpty() || getUsedSlots() > 0) {
+            wait();
+        }
+    }
+
+    public synchronized int getUsedSlots() {
+        int used = 0;
+        for (int slots : this.usedSlots.values()) {
+            used += slots;
+        }
+        return used;
+    }
+
+    public int getTotalSlots() {
+        return this.slaves.size() * this.slotsPerSlave;
+    }
+
+    public synchronized List<ScheduledJob> getJobs() {
+        return new ArrayList<>(this.jobs);
+    }
+
+    public void setBasePort(int basePort) {
+        this.basePort = basePort;
+    }
+
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    private void printStatus() {
+        // One line on the utilization of the cluster, the running jobs and the queue, after every change
+
+        StringBuilder status = new StringBuilder();
+        status.append(String.format("Cluster: %d/%d slots used (%.0f%%), running:", getUsedSlots(), getTotalSlots(), 100.0 * getUsedSlots() / getTotalSlots()));
+        for (ScheduledJob job : this.jobs) {
+            if (job.getState() == ScheduledJob.State.RUNNING) {
+                status.append(" job ").append(job.getId()).append(" (").append(job.getSlaves().size()).append(" slots)");
+            }
+        }
+        status.append(", queued:");
+        ArrayList<ScheduledJob> queued = new ArrayList<>(this.queue);
+        queued.sort(this.queue.comparator());
+        for (ScheduledJob job : queued) {
+            status.append(" job ").append(job.getId()).append(" (priority ").append(job.getPriority()).append(')');
+        }
+        System.out.println(status);
+    }
+
+    // NOTE: Metrics endpoint
+
+    public void startMetricsEndpoint() {
+        // Serve the slots and the jobs on http://<scheduler>:port/metrics, next to the metrics endpoints of the masters
+
+        if (this.metricsPort <= 0) {
+            return;
+        }
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(this.metricsPort), 0);
+            this.server.createContext(MetricsEndpoint.PATH, this::handle);
+            this.server.start();
+            System.out.println("Scheduler metrics served on port " + this.metricsPort + MetricsEndpoint.PATH);
+        } catch (IOException e) {
+            System.out.println("Scheduler metrics endpoint could not listen on port " + this.metricsPort);
+            e.printStackTrace();
+        }
+    }
+
+    public void stopMetricsEndpoint() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", MetricsEndpoint.CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    public synchronized String render() {
+        // The slots of the cluster and of each slave, then the jobs by state and each job with its slots and times
+
+        StringBuilder text = new StringBuilder();
+        MetricsEndpoint.header(text, "wordcount_scheduler_slots", "gauge", "Slots of the cluster");
+        text.append("wordcount_scheduler_slots ").append(getTotalSlots()).append('\n');
+        MetricsEndpoint.header(text, "wordcount_scheduler_slots_used", "gauge", "Slots of the slave taken by running jobs");
+        for (String slave : this.slaves) {
+            text.append("wordcount_scheduler_slots_used{slave=\"").append(MetricsEndpoint.escape(slave)).append("\"} ").append(this.usedSlots.get(slave)).append('\n');
+        }
+        MetricsEndpoint.header(text, "wordcount_scheduler_utilization", "gauge", "Share of the slots of the cluster taken by running jobs");
+        text.append("wordcount_scheduler_utilization ").append((double) getUsedSlots() / getTotalSlots()).append('\n');
+
+        MetricsEndpoint.header(text, "wordcount_scheduler_jobs", "gauge", "Submitted jobs in the state");
+        for (ScheduledJob.State state : ScheduledJob.State.values()) {
+            long count = this.jobs.stream().filter(job -> job.getState() == state).count();
+            text.append("wordcount_scheduler_jobs{state=\"").append(state.name().toLowerCase()).append("\"} ").append(count).append('\n');
+        }
+        MetricsEndpoint.header(text, "wordcount_scheduler_job_slots", "gauge", "Slots of the job, 0 while it is queued");
+        for (ScheduledJob job : this.jobs) {
+            text.append("wordcount_scheduler_job_slots").append(jobLabels(job)).append(job.getState() == ScheduledJob.State.QUEUED ? 0 : job.getSlaves().size()).append('\n');
+        }
+        MetricsEndpoint.header(text, "wordcount_scheduler_job_wait_seconds", "gauge", "Time the job spent in the queue");
+        for (ScheduledJob job : this.jobs) {
+            text.append("wordcount_scheduler_job_wait_seconds").append(jobLabels(job)).append(job.getWaitTime() / 1000.0).append('\n');
+        }
+        MetricsEndpoint.header(text, "wordcount_scheduler_job_run_seconds", "gauge", "Time the job has run on its slots");
+        for (ScheduledJob job : this.jobs) {
+            text.append("wordcount_scheduler_job_run_seconds").append(jobLabels(job)).append(job.getRunTime() / 1000.0).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String jobLabels(ScheduledJob job) {
+        return "{job=\"" + job.getId() + "\",state=\"" + job.getState().name().toLowerCase() + "\",priority=\"" + job.getPriority() + "\"} ";
+    }
+
+    /* NOTE: MAIN PROGRAM */
+    public static void main(String[] args) throws Exception {
+        // Arguments: file of the jobs, one "input output [parallelism] [priority] [timeout in seconds]" per line (all the slaves, priority 1 and JOB_TIMEOUT by default), then optionally the number of slots of each slave
+        String jobsFilename = args.length > 0 ? args[0] : "project/jobs.txt";
+        int slotsPerSlave = args.length > 1 ? Integer.parseInt(args[1]) : SLOTS_PER_SLAVE;
+        String computersFilename = "project/computers.txt";
+        String user = "bternot-21";
+        String domain = ".enst.fr";
+        int maxMachineUsed = 3;
+
+        // The slave daemons are deployed like the slaves of a single run, by a master used only for that; its job id, which no submitted job has, makes it launch daemons, which stay up for all the jobs
+        Master deployer = new Master(null, null, computersFilename, user, domain, maxMachineUsed);
+        deployer.setJobId(DEPLOY_JOB);
+        deployer.loadComputers();
+        deployer.compileSlaves();
+        deployer.cleanSlavesFolders();
+        deployer.sendSlaves();
+        deployer.launchSlaves();
+
+        JobScheduler scheduler = new JobScheduler(deployer.getSlaves(), slotsPerSlave, domain);
+        scheduler.startMetricsEndpoint();
+        try (BufferedReader reader = new BufferedReader(new FileReader(jobsFilename))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 2) {
+                    continue;
+                }
+                int parallelism = fields.length > 2 ? Integer.parseInt(fields[2]) : deployer.getSlaves().size();
+                int priority = fields.length > 3 ? Integer.parseInt(fields[3]) : 1;
+                long timeout = fields.length > 4 ? Long.parseLong(fields[4]) * 1000 : JOB_TIMEOUT;
+                scheduler.submit(fields[0], fields[1], parallelism, priority, timeout);
+            }
+        }
+        scheduler.awaitJobs();
+        scheduler.stopMetricsEndpoint();
+        System.exit(0); // the signal handling of the last masters may still be draining their status ports
+    }
+}
@@ -0,0 +1,96 @@
+package project.src.Master;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import project.src.Slave.SlaveAddress;
+
+public class LocalCluster {
+    /* NOTE: Attributes */
+
+    public static final String HOST = "localhost";
+    public static final long STOP_TIMEOUT = 30000; // Time in milliseconds a slave has to exit on its own once the run is over, before it is killed
+
+    private final Path workDirectory; // folder of the cluster, with one folder per slave in which it keeps its splits, spills and staged attempts
+    private final int basePort; // slave i listens to commands on basePort + 2i, and to the words of the other slaves on basePort + 2i + 1
+    private final ArrayList<Process> processes = new ArrayList<>(); // one JVM per slave
+    private boolean daemons = false; // slaves launched as SlaveDaemon, which stay up between jobs and are killed by stop
+
+    // NOTE: Constructor
+    public LocalCluster(Path workDirectory, int basePort) {
+        this.workDirectory = workDirectory;
+        this.basePort = basePort;
+    }
+
+    /* NOTE: Methods */
+
+    public void start(Master master, int slaves, int mapParallelism) throws IOException {
+        // Add the slaves to the master and launch them, each in its own JVM with its own ports and working directory; the master then drives them like remote machines, except that no SSH is needed
+
+        launch(slaves, mapParallelism, false);
+        addSlaves(master, slaves, mapParallelism);
+    }
+
+    public void startDaemons(int slaves, int mapParallelism) throws IOException {
+        // Launch the slaves as daemons, which run the jobs of every master given to addSlaves with its own job id, until stop
+
+        launch(slaves, mapParallelism, true);
+    }
+
+    public void addSlaves(Master master, int slaves, int mapParallelism) {
+        for (String slave : getSlaves(slaves)) {
+            master.addSlave(slave, mapParallelism);
+        }
+        master.initStatusLatches();
+    }
+
+    public ArrayList<String> getSlaves(int slaves) {
+        // Names of the first slaves, with their ports, as given to the masters
+        ArrayList<String> names = new ArrayList<>();
+        for (int i = 0; i < slaves; i++) {
+            int statusPort = this.basePort + 2 * i;
+            names.add(SlaveAddress.of(HOST, statusPort, statusPort + 1));
+        }
+        return names;
+    }
+
+    private void launch(int slaves, int mapParallelism, boolean daemons) throws IOException {
+        this.daemons = daemons;
+        for (int i = 0; i < slaves; i++) {
+            int statusPort = this.basePort + 2 * i;
+            Path slaveDirectory = this.workDirectory.resolve("slave" + i);
+            Files.createDirectories(slaveDirectory);
+            ProcessBuilder launchCommand = daemons
+                    ? new ProcessBuilder("java", "-cp", System.getProperty("java.class.path"), "project.src.Slave.SlaveDaemon", Integer.toString(mapParallelism), Integer.toString(statusPort), Integer.toString(statusPort + 1))
+                    : new ProcessBuilder("java", "-cp", System.getProperty("java.class.path"), "project.src.Slave.Slave", Integer.toString(mapParallelism), Integer.toString(statusPort));
+            launchCommand.directory(slaveDirectory.toFile());
+            launchCommand.redirectErrorStream(true);
+            launchCommand.redirectOutput(new File(slaveDirectory.toFile(), "slave.log"));
+            this.processes.add(launchCommand.start());
+        }
+    }
+
+    public void stop() {
+        // Wait for the slaves to exit after sending their results, and kill the ones that do not; daemons never exit on their own and are killed right away
+
+        for (Process process : this.processes) {
+            try {
+                if (this.daemons) {
+                    process.destroy();
+                    process.waitFor(STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+                } else if (!process.waitFor(STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    System.out.println("Slave " + process.pid() + " did not exit, killing it");
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.processes.clear();
+    }
+}
@@ -1,37 +1,61 @@
 package project.src.Master;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-
-import project.src.Slave.Slave;
-import project.src.Slave.Slave.SlaveCommand;
-import project.src.Slave.Slave.SlaveStatus;
-import project.src.Slave.Slave.WordCount;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import project.src.Slave.SlaveAddress;
+import project.src.Slave.SplitTokenizer;
+import project.src.Slave.Signals.CommandSignal;
+import project.src.Slave.Signals.FailureSignal;
+import project.src.Slave.Signals.Heartbeat;
+import project.src.Slave.Signals.PartitionTable;
+import project.src.Slave.Signals.PhaseTimes;
+import project.src.Slave.Signals.SignalCodec;
+import project.src.Slave.Signals.SlaveCommand;
+import project.src.Slave.Signals.SlaveStatus;
+import project.src.Slave.Signals.SplitProgress;
+import project.src.Slave.Signals.StatusSignal;
+import project.src.Slave.Signals.WordCount;
 
 public class Master implements MasterInterface {
     /* NOTE: Attributes */
 
-    private volatile boolean statusGlobalRunning = true;
-    private volatile boolean signalHandlingRunning = true;
-    private volatile boolean resultHandlingRunning = true;
-    private volatile boolean termination = false;
+    private static final Object END_OF_SIGNALS = new Object(); // enqueued once the status port is drained, stops the signal handling
+    private static final Object END_OF_RESULTS = new Object(); // enqueued once the result port is closed, stops waiting for result connections
+
+    private CountDownLatch termination = new CountDownLatch(1); // released once all the results are written
+    private Thread signalHandlingThread; // handles the signals until END_OF_SIGNALS, joined before the statuses are reported
+    private volatile String failure; // why the job was aborted, null while it goes on
 
     private String inputDataFilename; // text over which we want to count the words
     private String outputResultsFilename; // text over which we want to store the results
@@ -42,16 +66,39 @@ public class Master implements MasterInterface {
     private ArrayList<String> slaves = new ArrayList<>();
     
     private HashMap<String, Boolean> slavesSplitter = new HashMap<>();
+    private HashMap<String, Integer> slavesMapParallelism = new HashMap<>(); // number of map threads of the slaves that set it in computersFilename, the others use all their cores
     private HashMap<String, SlaveStatus> slavesStatuses = new HashMap<>(); // map of available computers and their execution status
-    private HashMap<String, Integer> result = new HashMap<>(); // map of words and their occurrences
+    private EnumMap<SlaveStatus, CountDownLatch> statusLatches = new EnumMap<>(SlaveStatus.class); // for each status, released once all slaves reached it
     
+    private long[] splitBoundaries; // byte offsets of the splits in the input file, split i is [splitBoundaries[i], splitBoundaries[i + 1])
     private int splitsUsed; // actual number of splits done
     private int maxMachineUsed; // max number of machines used,  actual number of machines used, >= splitsUsed, with = if only the file has enough lines in it
-
+    private int combinerCapacity = COMBINER_CAPACITY; // max number of distinct words pre-aggregated by each mapper, 0 if no combiner
+    private boolean offHeapReduce = OFF_HEAP_REDUCE; // whether the reducers keep their counts off-heap
+    private long reduceMemoryBudget = REDUCE_MEMORY_BUDGET; // memory of the counts of a reducer beyond which they are spilled to disk, 0 for half of its heap
+    private boolean skewAwarePartitioning = SKEW_AWARE_PARTITIONING; // whether the hot words are spread over several reducers
+    private PartitionTable partitionTable = new PartitionTable(); // hot words found by sampling the input, empty for plain hash partitioning
+    private long[] reducerLoads; // occurrences of words reduced by each slave, from its results
+    private boolean speculativeExecution = SPECULATIVE_EXECUTION; // whether the splits mapped too slowly are mapped again by an idle slave
+    private SplitAttempts splitAttempts; // attempts of the splits on the slaves, with their progress, created with the splits
+    private boolean incremental = INCREMENTAL; // whether only the lines appended since the previous run are counted
+    private ResultSnapshot snapshot; // counts of the previous runs and offset of the input they cover, when incremental
+    private int resultStreams = 0; // result streams of the slaves fully merged
+    private Integer jobId = null; // job of the run on slave daemons that stay up between jobs, null for slaves that live for one job
+    private int statusPort = STATUS_PORT; // port on which the statuses of the slaves are received
+    private int resultPort = RESULT_PORT; // port on which the results of the slaves are received
+    private int metricsPort = METRICS_PORT; // port of the HTTP endpoint of the slave metrics, 0 to disable it
+    private MetricsEndpoint metricsEndpoint = new MetricsEndpoint(); // last heartbeat of each slave, served in Prometheus text format
+    private RunReport runReport = new RunReport(); // wall time of each step of the master and phase of the slaves, with the figures of the run, written next to the results
+
+    private SlaveArtifact slaveArtifact = new SlaveArtifact(Paths.get(SLAVE_SOURCES_FOLDER), Paths.get(SLAVE_JAR_FILENAME)); // jar of the slave, built once by the master, and its hash
     private Queue<Long> commandTimestamps = new LinkedList<>(); // Queue to store command timestamps 
 
-    private ConcurrentLinkedQueue<Object> signalsReceived = new ConcurrentLinkedQueue<>(); // queue used to store the incoming signals, to handle them one by one
-    private ConcurrentLinkedQueue<Object> wordsReceived = new ConcurrentLinkedQueue<>(); // queue used to store the incoming words, to handle them one by one
+    private MasterServer server; // event loop receiving the statuses of all slaves
+    private ServerSocket resultServerSocket; // accepts the result stream of each slave
+
+    private LinkedBlockingQueue<Object> signalsReceived = new LinkedBlockingQueue<>(); // queue used to store the incoming signals, decoded by the server workers, to handle them one by one
+    private LinkedBlockingQueue<Object> resultConnections = new LinkedBlockingQueue<>(); // queue used to store the accepted result connections, to merge them once all slaves are connected
 
     // NOTE: Constructor
     public Master(String inputDataFilename, String outputStringFilename, String computersFilename, String user, String domain, int maxMachineUsed) {
@@ -77,13 +124,18 @@ public class Master implements MasterInterface {
             String line;
             int machineCount = 0;
             while ((line = reader.readLine()) != null && machineCount < this.maxMachineUsed) {
+                // Each line is "hostname [number of map threads]"
+                String[] fields = line.trim().split("\\s+");
+                if (fields[0].isEmpty()) {
+                    continue;
+                }
+                line = fields[0];
+
                 // Check SSH availability
                 String remoteMachine = user + "@" + line + domain;
                 boolean isMachineReachable = isMachineReachable(remoteMachine, "Availability");
                 if (isMachineReachable) {
-                    this.slavesStatuses.put(line, SlaveStatus.IDLE);
-                    this.slavesSplitter.put(line, false);
-                    this.slaves.add(line);
+                    addSlave(line, fields.length > 1 ? Integer.parseInt(fields[1]) : null);
                     machineCount++;
                     System.out.println("Machine " + line + " - OK");
                 } else {
@@ -98,35 +150,42 @@ public class Master implements MasterInterface {
         for (String slave : this.slaves) {
             System.out.println(slave);
         }
+
+        initStatusLatches();
     }
 
     @Override
-    public boolean isMachineReachable(String remoteMachine, String actionTried) {
-        //Implementation of isMachineReachable method
-
-        long currentTime = System.currentTimeMillis();
-
-        // Remove timestamps that are older than the time window
-        while (!commandTimestamps.isEmpty() && commandTimestamps.peek() <= currentTime - TIME_WINDOW) {
-            commandTimestamps.poll();
+    public void addSlave(String slave, Integer mapParallelism) {
+        // Implementation of addSlave method
+
+        this.slavesStatuses.put(slave, SlaveStatus.IDLE);
+        this.slavesSplitter.put(slave, false);
+        this.slaves.add(slave);
+        if (mapParallelism != null) {
+            this.slavesMapParallelism.put(slave, mapParallelism);
         }
+    }
 
-        // Check if the number of commands executed within the time window exceeds the limit
-        if (commandTimestamps.size() >= MAX_COMMANDS_PER_MINUTE) {
-            // Calculate the amount of time to wait before executing the next command
-            currentTime = System.currentTimeMillis();
-            long waitTime = commandTimestamps.poll() + TIME_WINDOW - currentTime;
+    @Override
+    public void initStatusLatches() {
+        // Implementation of initStatusLatches method
 
-            if (waitTime > 0) {
-                System.out.println("Command execution limit reached. Waiting for " + waitTime + " milliseconds before executing the next command.");
-                try {
-                    Thread.sleep(waitTime);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+        for (SlaveStatus status : SlaveStatus.values()) {
+            int slavesBelow = 0;
+            for (SlaveStatus slaveStatus : this.slavesStatuses.values()) {
+                if (slaveStatus.getOrder() < status.getOrder()) {
+                    slavesBelow++;
                 }
             }
+            this.statusLatches.put(status, new CountDownLatch(slavesBelow));
         }
-        commandTimestamps.add(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isMachineReachable(String remoteMachine, String actionTried) {
+        //Implementation of isMachineReachable method
+
+        waitForCommandSlot();
 
         String[] parts = remoteMachine.split("@");
         String hostname = parts[1];
@@ -168,29 +227,40 @@ public class Master implements MasterInterface {
     public void splitInputData() {
         // Implementation of splitInputData method
 
-        try {
-            try (BufferedReader reader = new BufferedReader(new FileReader(this.inputDataFilename))) {
-                ArrayList<BufferedWriter> writers = new ArrayList<>();
-                String line;
-                int currWriter = 0;
-                while ((line = reader.readLine()) != null) {
-                    if (currWriter < this.slaves.size()) {
-                        writers.add(new BufferedWriter(new FileWriter("project/splits/S" + currWriter + ".txt")));
-                    }
-                    BufferedWriter writer = writers.get(currWriter % this.slaves.size());
-                    writer.write(line);
-                    currWriter += 1;
-                }
-
-                for (BufferedWriter writer : writers) {
-                    writer.close();
+        try (FileChannel channel = FileChannel.open(Paths.get(this.inputDataFilename), StandardOpenOption.READ)) {
+            long start = 0;
+            long end = channel.size();
+            if (this.incremental) {
+                // Only the lines appended since the previous run are counted; the last line waits for the next run until it ends, as an append may go on with it
+                // A snapshot that cannot be read is ignored, and the whole input counted again
+                ResultSnapshot snapshot = new ResultSnapshot(Paths.get(this.outputResultsFilename + SNAPSHOT_SUFFIX), Paths.get(this.inputDataFilename));
+                if (snapshot.load()) {
+                    System.out.println("Snapshot loaded, the input is counted from byte " + snapshot.getOffset());
                 }
+                start = snapshot.getOffset();
+                end = SplitTokenizer.lastLineEnd(channel, start, end);
+                this.snapshot = snapshot;
+            }
 
-                this.splitsUsed = writers.size();
-                System.out.println(this.splitsUsed + " splits used.\n");
+            // Only the boundaries are computed, with a short scan to the next line after each of them; the splits stay ranges of the input file
+            this.splitBoundaries = SplitTokenizer.splitAtLines(channel, start, end - start, this.slaves.size());
+            this.splitsUsed = this.splitBoundaries.length - 1;
+            this.splitAttempts = new SplitAttempts(this.splitBoundaries);
+            for (int split = 0; split < this.splitsUsed; split++) {
+                this.slavesSplitter.put(this.slaves.get(split), true); // This slave needs to process a split
+            }
+            System.out.println(this.splitsUsed + " splits used.\n");
+
+            if (this.skewAwarePartitioning && this.slaves.size() > 1) {
+                // The frequent words would make one reducer receive much more than the others: they are spread over several ones, and their partial counts are summed by the master
+                PartitionSampler sampler = new PartitionSampler();
+                sampler.sample(channel, SAMPLE_BLOCKS, SAMPLE_BLOCK_SIZE);
+                this.partitionTable = sampler.partitionTable(this.slaves.size(), HOT_KEY_LOAD);
+                System.out.printf("%d hot words in %d sampled words, sampled reducer load imbalance (max/mean): %.2f with hash partitioning, %.2f with the partition table%n%n",
+                        this.partitionTable.size(), sampler.getSampledWords(), sampler.imbalance(new PartitionTable(), this.slaves.size()), sampler.imbalance(this.partitionTable, this.slaves.size()));
             }
         } catch (IOException e) {
-            // Handle any exceptions that occur during file reading or writing
+            // Handle any exceptions that occur during file reading
             System.err.println("An error occurred during file processing: " + e.getMessage());
         }
     }
@@ -198,84 +268,126 @@ public class Master implements MasterInterface {
     // NOTE: Deploy methods
 
     @Override
-    public int executeCommand(ProcessBuilder processBuilder) throws IOException, InterruptedException {
-        long currentTime = System.currentTimeMillis();
+    public void waitForCommandSlot() {
+        // Implementation of waitForCommandSlot method
 
-        // Remove timestamps that are older than the time window
-        while (!commandTimestamps.isEmpty() && commandTimestamps.peek() <= currentTime - TIME_WINDOW) {
-            commandTimestamps.poll();
-        }
+        // The slot is reserved under the lock and waited for outside of it, so that the limit holds for all the deployment threads together
+        long slot;
+        synchronized (this.commandTimestamps) {
+            long currentTime = System.currentTimeMillis();
 
-        // Check if the number of commands executed within the time window exceeds the limit
-        if (commandTimestamps.size() >= MAX_COMMANDS_PER_MINUTE) {
-            // Calculate the amount of time to wait before executing the next command
-            currentTime = System.currentTimeMillis();
-            long waitTime = commandTimestamps.poll() + TIME_WINDOW - currentTime;
+            // Remove timestamps that are older than the time window
+            while (!commandTimestamps.isEmpty() && commandTimestamps.peek() <= currentTime - TIME_WINDOW) {
+                commandTimestamps.poll();
+            }
 
-            if (waitTime > 0) {
-                System.out.println("Command execution limit reached. Waiting for " + waitTime + " milliseconds before executing the next command.");
-                try {
-                    Thread.sleep(waitTime);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            // Check if the number of commands executed within the time window exceeds the limit
+            slot = currentTime;
+            if (commandTimestamps.size() >= MAX_COMMANDS_PER_MINUTE) {
+                // The command takes the place of the oldest one, once it leaves the time window
+                slot = Math.max(currentTime, commandTimestamps.poll() + TIME_WINDOW);
+            }
+            commandTimestamps.add(slot);
+        }
+
+        long waitTime = slot - System.currentTimeMillis();
+        if (waitTime > 0) {
+            System.out.println("Command execution limit reached. Waiting for " + waitTime + " milliseconds before executing the next command.");
+            try {
+                Thread.sleep(waitTime);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
         }
-        commandTimestamps.add(System.currentTimeMillis());
+    }
+
+    @Override
+    public int executeCommand(ProcessBuilder processBuilder) throws IOException, InterruptedException {
+        waitForCommandSlot();
         int exitCode = -1;
         processBuilder.redirectErrorStream(true);
         Process process = processBuilder.start();
-        exitCode = process.waitFor();
+        if (!process.waitFor(DEPLOY_COMMAND_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            // A machine that hangs must not hold back the deployment of the others
+            System.out.println("Command " + String.join(" ", processBuilder.command()) + " timed out after " + DEPLOY_COMMAND_TIMEOUT + " ms");
+            process.destroyForcibly();
+            return exitCode;
+        }
+        exitCode = process.exitValue();
         return exitCode;
     }
 
     @Override
-    public void cleanSlavesFolders() {
-        // Implementation of cleanSlavesFolders method
+    public Process startCommand(ProcessBuilder processBuilder) throws IOException {
+        waitForCommandSlot();
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        return processBuilder.start();
+    }
 
-        boolean allCleanSucceeded = true;
-        System.out.println("Cleaning folders /tmp/" + user + "/ on slaves...");
+    @Override
+    public boolean deployOnSlaves(String step, DeployStep deployStep) {
+        // Implementation of deployOnSlaves method
 
-        for (String slave : slaves) {
+        // One thread per slave, so that a step takes as long as the slowest machine instead of the sum of all of them; the commands still share the rate limit, and each is bounded by DEPLOY_COMMAND_TIMEOUT
+        ConcurrentHashMap<String, Boolean> succeeded = new ConcurrentHashMap<>();
+        ArrayList<Thread> deployThreads = new ArrayList<>();
+        for (String slave : this.slaves) {
             String remoteMachine = user + "@" + slave + domain;
-            try {
-                // Check if the folder exists on the remote machine
-                ProcessBuilder checkFolderCommand = new ProcessBuilder(
-                    "ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine,
-                    "test", "-d", "/tmp/" + user + "/"
-                );
-                int checkFolderExitCode = executeCommand(checkFolderCommand);
-
-                if (checkFolderExitCode == 0) {
-                    System.out.println("Folder /tmp/" + user + "/ exists on machine " + slave + " . Cleaning it...");
-                    // Folder exists on the remote machine, delete its contents
-                    ProcessBuilder deleteContentsCommand = new ProcessBuilder(
-                        "ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine,
-                        "rm", "-rf", "/tmp/" + user + "/"
-                    );
-                    executeCommand(deleteContentsCommand);
-                    System.out.println("Folder /tmp/" + user + "/ machine " + slave + " cleaned.");
-                    
-                } else {
-                    System.out.println("Folder /tmp/" + user + "/ does not exist on machine " + slave + " . Creating it...");
+            Thread deployThread = new Thread(() -> {
+                try {
+                    succeeded.put(slave, deployStep.run(slave, remoteMachine));
+                } catch (IOException | InterruptedException e) {
+                    System.out.println(step + " failed on " + remoteMachine);
+                    e.printStackTrace();
                 }
-                ProcessBuilder createFolderCommand = new ProcessBuilder(
-                        "ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine,
-                        "mkdir", "-p", "/tmp/" + user + "/project/splits/", "/tmp/" + user + "/project/src/Slave/"
-                );
-                executeCommand(createFolderCommand);
-                System.out.println("Folder /tmp/" + user + "/splits/ machine " + slave + " created.");
-            } catch (IOException | SecurityException | InterruptedException e) {
-                System.out.println("Failed to execute clean commands on " + remoteMachine + "\n");
+            });
+            deployThread.start();
+            deployThreads.add(deployThread);
+        }
+
+        ArrayList<String> failedSlaves = new ArrayList<>();
+        for (int i = 0; i < deployThreads.size(); i++) {
+            try {
+                deployThreads.get(i).join();
+            } catch (InterruptedException e) {
                 e.printStackTrace();
-                allCleanSucceeded = false;
-                break;
+            }
+            String slave = this.slaves.get(i);
+            if (!succeeded.getOrDefault(slave, false)) {
+                failedSlaves.add(slave);
             }
         }
 
-        if (allCleanSucceeded) {
-            System.out.println("Clean operation completed successfully.\n");
+        if (failedSlaves.isEmpty()) {
+            System.out.println(step + " operation completed successfully on all " + this.slaves.size() + " slaves.\n");
+        } else {
+            System.out.println(step + " operation failed on " + failedSlaves.size() + "/" + this.slaves.size() + " slaves: " + String.join(", ", failedSlaves) + "\n");
+            this.runReport.put(step + " failures", failedSlaves);
         }
+        return failedSlaves.isEmpty();
+    }
+
+    @Override
+    public void cleanSlavesFolders() {
+        // Implementation of cleanSlavesFolders method
+
+        System.out.println("Cleaning folders /tmp/" + user + "/project/ on slaves...");
+
+        deployOnSlaves("Clean", (slave, remoteMachine) -> {
+            // The splits of the previous run are deleted, the cache of the slave jar is kept
+            ProcessBuilder cleanCommand = new ProcessBuilder(
+                "ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine,
+                "rm", "-rf", "/tmp/" + user + "/project/", "&&",
+                "mkdir", "-p", "/tmp/" + user + "/project/splits/", remoteCacheFolder()
+            );
+            if (executeCommand(cleanCommand) != 0) {
+                System.out.println("Failed to clean the folders on machine " + slave);
+                return false;
+            }
+            System.out.println("Folder /tmp/" + user + "/project/ machine " + slave + " cleaned.");
+            return true;
+        });
     }
 
     @Override
@@ -284,41 +396,72 @@ public class Master implements MasterInterface {
 
         System.out.println("Sending splits to slaves...");
 
-        boolean allSendsSucceeded = true;
-
-        int countSplits = 0;
-
-        for (String slave : this.slaves) {
-            String remoteMachine = user + "@" + slave + domain;
-            String scpCommand = "scp -o \"StrictHostKeyChecking=no\" project/splits/S" + countSplits + ".txt " + remoteMachine + ":/tmp/" + user + "/project/splits/";
-            ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/c", scpCommand);
+        AtomicBoolean allSendsSucceeded = new AtomicBoolean(true);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(this.inputDataFilename), StandardOpenOption.READ)) {
+            // One thread per split, so that all slaves map while they receive; the first attempts are launched in split order, so attempt i is split i
+            ArrayList<Thread> sendingThreads = new ArrayList<>();
+            for (int countSplits = 0; countSplits < this.splitsUsed; countSplits++) {
+                String slave = this.slaves.get(countSplits);
+                int split = countSplits;
+                int attempt = this.splitAttempts.launch(split, slave);
+                Thread sendingThread = new Thread(() -> {
+                    if (sendSplit(channel, slave, split, attempt)) {
+                        System.out.println("Split " + split + " sent to " + slave);
+                    } else {
+                        allSendsSucceeded.set(false);
+                    }
+                });
+                sendingThread.start();
+                sendingThreads.add(sendingThread);
+            }
+            for (Thread sendingThread : sendingThreads) {
+                sendingThread.join();
+            }
+        } catch (IOException | InterruptedException e) {
+            System.err.println("An error occurred while sending the splits: " + e.getMessage());
+            allSendsSucceeded.set(false);
+        }
 
-            try {
-                int sendExitCode = executeCommand(processBuilder);
+        if (allSendsSucceeded.get()) {
+            System.out.println("Send splits operation completed successfully.\n");
+        }
+    }
 
-                if (sendExitCode != 0) {
-                    System.out.println("Failed to send split " + countSplits + " to " + slave);
-                    allSendsSucceeded = false;
-                } else {
-                    System.out.println("Split " + countSplits + " sent to " + slave);
-                }
+    @Override
+    public boolean sendSplit(FileChannel channel, String slave, int split, int attempt) {
+        // Implementation of sendSplit method
 
-                this.slavesSplitter.put(remoteMachine, true); // This slave needs to process a split
+        long start = this.splitBoundaries[split];
+        long end = this.splitBoundaries[split + 1];
+        InetAddress ipAddress = resolveSlaveHostname(slave);
 
-            } catch (IOException | InterruptedException e) {
-                System.out.println("Failed to execute the SCP command to send split " + countSplits + " to " + remoteMachine);
-                e.printStackTrace();
-                allSendsSucceeded = false;
-                break;
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (SocketChannel socket = SocketChannel.open(new InetSocketAddress(ipAddress, SlaveAddress.statusPort(slave)))) {
+            if (this.jobId != null) {
+                SignalCodec.writeJobHeader(header, this.jobId);
             }
-
-            if (countSplits++ == this.splitsUsed) {
-                break;
+            SignalCodec.writeFrame(header, SlaveCommand.SPLIT.with(split, end - start, attempt));
+            ByteBuffer headerBuffer = ByteBuffer.wrap(header.toByteArray());
+            while (headerBuffer.hasRemaining()) {
+                socket.write(headerBuffer);
             }
-        }
 
-        if (allSendsSucceeded) {
-            System.out.println("Send splits operation completed successfully.\n");
+            // The bytes go from the input file to the socket without being copied by the master
+            for (long position = start; position < end; ) {
+                position += channel.transferTo(position, end - position, socket);
+            }
+            return true;
+        } catch (IOException e) {
+            int committedAttempt = this.splitAttempts.getCommittedAttempt(split);
+            if (committedAttempt >= 0 && committedAttempt != attempt) {
+                // The slave stops receiving an attempt once another one is committed
+                System.out.println("Attempt " + attempt + " of split " + split + " on " + slave + " stopped, attempt " + committedAttempt + " was committed");
+                return true;
+            }
+            System.out.println("Failed to send split " + split + " to " + slave + " (IP: " + ipAddress + ") on port " + SlaveAddress.statusPort(slave));
+            e.printStackTrace();
+            return false;
         }
     }
 
@@ -326,69 +469,57 @@ public class Master implements MasterInterface {
     public void sendSlaves() {
         // Implementation of sendSlaves method
 
-        boolean allSendsSucceeded = true;
+        String cachedJar = remoteCacheFolder() + cachedJarFilename();
+        deployOnSlaves("Send Slaves", (slave, remoteMachine) -> {
+            // A slave that already has this version of the jar keeps it
+            ProcessBuilder checkCacheCommand = new ProcessBuilder("ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine, "test", "-f", cachedJar);
+            if (executeCommand(checkCacheCommand) == 0) {
+                System.out.println("Slave " + this.slaveArtifact.getHash().substring(0, 12) + " already cached on " + remoteMachine);
+                return true;
+            }
 
-        for (String slave : this.slaves) {
-            String remoteMachine = user + "@" + slave + domain;
-            String scpCommand = "scp -o \"StrictHostKeyChecking=no\" project/src/Slave/Slave.java " + remoteMachine + ":/tmp/" + user + "/project/src/Slave/";
+            // Copied under a temporary name and then renamed, so that an interrupted copy is never taken for a cached jar; the other versions are removed
+            String scpCommand = "scp -o \"StrictHostKeyChecking=no\" " + this.slaveArtifact.getJarPath() + " " + remoteMachine + ":" + cachedJar + ".part";
             ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/c", scpCommand);
-
-            try {
-                int sendExitCode = executeCommand(processBuilder);
-
-                if (sendExitCode != 0) {
-                    System.out.println("Failed to send Slave to " + remoteMachine);
-                    allSendsSucceeded = false;
-                } else {
-                    System.out.println("Slave sent to " + remoteMachine);
-                }
-            } catch (IOException | InterruptedException e) {
-                System.out.println("Failed to execute the SCP command to send Slave to " + remoteMachine);
-                e.printStackTrace();
-                allSendsSucceeded = false;
-                break;
+            int sendExitCode = executeCommand(processBuilder);
+            if (sendExitCode != 0) {
+                System.out.println("Failed to send Slave to " + remoteMachine);
+                return false;
             }
-        }
+            ProcessBuilder commitCacheCommand = new ProcessBuilder(
+                "ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine,
+                "mv", cachedJar + ".part", cachedJar, "&&",
+                "find", remoteCacheFolder(), "-type", "f", "!", "-name", cachedJarFilename(), "-delete"
+            );
+            if (executeCommand(commitCacheCommand) != 0) {
+                System.out.println("Failed to cache Slave on " + remoteMachine);
+                return false;
+            }
+            System.out.println("Slave sent to " + remoteMachine);
+            return true;
+        });
+    }
 
-        if (allSendsSucceeded) {
-            System.out.println("Send Slaves operation completed successfully.\n");
-        }
+    private String remoteCacheFolder() {
+        return "/tmp/" + user + "/cache/";
+    }
+
+    private String cachedJarFilename() {
+        return "slave-" + this.slaveArtifact.getHash() + ".jar";
     }
 
     @Override
     public void compileSlaves() {
         // Implementation of compileSlaves method
 
-        boolean allLaunchesSucceeded = true;
-
-        for (String slave : this.slaves) {
-            String remoteMachine = user + "@" + slave + domain;
-
-            try {
-                // Check connection availability
-                boolean isMachineReachable = isMachineReachable(remoteMachine, "Compile");
-                allLaunchesSucceeded &= isMachineReachable;
-
-                if (!allLaunchesSucceeded) {
-                    break;
-                }
-
-                // Compile Slave program on the remote machine
-                ProcessBuilder compileCommand = new ProcessBuilder("ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine, "javac", "/tmp/" + user + "project/src/Slave/Slave.java");
-                executeCommand(compileCommand);
-
-                System.out.println("Slave program compiled on " + remoteMachine);
-
-            } catch (IOException | InterruptedException e) {
-                System.out.println("Failed to compile Slave.java on " + remoteMachine);
-                e.printStackTrace();
-                allLaunchesSucceeded = false;
-                break;
-            }
-        }
-
-        if (allLaunchesSucceeded) {
-            System.out.println("All compiled completed successfully.\n");
+        // Once, on the master: the slaves only receive the jar if they do not have it yet, and never compile
+        try {
+            String hash = this.slaveArtifact.build();
+            this.runReport.put("slaveArtifact", hash);
+            System.out.println("Slave jar " + this.slaveArtifact.getJarPath() + " built, hash " + hash + "\n");
+        } catch (IOException e) {
+            // Nothing can be deployed without the jar, so the deploy stops here
+            throw new IllegalStateException("Failed to build the slave jar: " + e.getMessage(), e);
         }
     }
 
@@ -396,123 +527,251 @@ public class Master implements MasterInterface {
     public void launchSlaves() {
         // Implementation of launchSlaves method
 
-        boolean allLaunchesSucceeded = true;
-
-        for (String slave : this.slaves) {
-            String remoteMachine = user + "@" + slave + domain;
+        deployOnSlaves("Launch", (slave, remoteMachine) -> {
+            // A daemon already running the jar of the master runs the job without being launched again, with its JIT-compiled code; one running another jar is killed and launched again
+            if (this.jobId != null) {
+                String daemonArtifact = getDaemonArtifact(slave);
+                if (daemonArtifact != null && daemonArtifact.equals(this.slaveArtifact.getHash())) {
+                    System.out.println("Slave daemon already running on " + remoteMachine);
+                    return true;
+                } else if (daemonArtifact != null) {
+                    System.out.println("Slave daemon on " + remoteMachine + " runs jar " + (daemonArtifact.isEmpty() ? "(unknown)" : daemonArtifact) + ", restarting it with jar " + this.slaveArtifact.getHash());
+                }
+            }
 
-            try {
-                // Check connection availability
-                boolean isMachineReachable = isMachineReachable(remoteMachine, "Launch");
-                allLaunchesSucceeded &= isMachineReachable;
+            // Check connection availability
+            if (!isMachineReachable(remoteMachine, "Launch")) {
+                return false;
+            }
 
-                if (!allLaunchesSucceeded) {
-                    break;
-                }
+            // Launch Slave program on the remote machine
+            ProcessBuilder killCommand = new ProcessBuilder("ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine, "lsof", "-ti | xargs kill -9");
+            executeCommand(killCommand);
+            String mapParallelism = this.slavesMapParallelism.containsKey(slave) ? " " + this.slavesMapParallelism.get(slave) : "";
+            ProcessBuilder launchCommand = new ProcessBuilder("ssh", "-t", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine, "\"cd /tmp/" + user + "/ ; java -cp " + remoteCacheFolder() + cachedJarFilename() + " " + (this.jobId != null ? SlaveArtifact.DAEMON_MAIN_CLASS : SlaveArtifact.MAIN_CLASS) + mapParallelism + "\"");
+
+            // The SSH session lasts as long as the slave, so it is not waited for; it only fails if it ends right away
+            Process launchProcess = startCommand(launchCommand);
+            if (launchProcess.waitFor(LAUNCH_CHECK_TIME, TimeUnit.MILLISECONDS)) {
+                System.out.println("Failed to launch Slave.java on " + remoteMachine + " (exit code " + launchProcess.exitValue() + ")");
+                return false;
+            }
+            System.out.println("Slave program launched on " + remoteMachine);
+            return true;
+        });
+    }
 
-                // Launch Slave program on the remote machine
-                ProcessBuilder killCommand = new ProcessBuilder("ssh", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine, "lsof", "-ti | xargs kill -9");
-                executeCommand(killCommand);
-                ProcessBuilder launchCommand = new ProcessBuilder("ssh", "-t", "-o", "\"StrictHostKeyChecking=no\"", remoteMachine, "\"cd /tmp/" + user + "/ ; java project/src/Slave/Slave\"");
-                executeCommand(launchCommand);
+    // NOTE: Handling statuses of slaves
 
-                System.out.println("Slave program launched on " + remoteMachine);
+    public MasterServer getServer() {
+        // Start the event loop of the status port on first use
 
-            } catch (IOException | InterruptedException e) {
-                System.out.println("Failed to launch Slave.java on " + remoteMachine);
+        if (this.server == null) {
+            try {
+                this.server = new MasterServer(DECODING_THREADS, SERVER_BUFFER_SIZE, SERVER_POOLED_BUFFERS);
+                this.server.start();
+            } catch (IOException e) {
                 e.printStackTrace();
-                allLaunchesSucceeded = false;
-                break;
             }
         }
-
-        if (allLaunchesSucceeded) {
-            System.out.println("All launches completed successfully.\n");
-        }
+        return this.server;
     }
 
-    // NOTE: Handling statuses of slaves
     @Override
     public void startSignalListeningThread() {
         //Implementation of startSignalListeningThread method
 
-        Thread listeningThread = new Thread(() -> {
-            try (ServerSocket serverSocket = new ServerSocket(STATUS_PORT)) {
-                while (this.signalHandlingRunning) {
-                    Socket clientSocket = serverSocket.accept();
-                    ObjectInputStream objectInputStream = new ObjectInputStream(clientSocket.getInputStream());
-                    try {
-                        Object signal = objectInputStream.readObject();
-                        this.signalsReceived.add(signal);
-                    } catch (ClassNotFoundException e) {
-                        System.out.println("Unknown object received.");
-                        e.printStackTrace();
-                    }
-                    clientSocket.close();
-                }
+        // The frames are decoded by the workers of the server, in parallel across connections, and the signals are queued for the handling thread
+        getServer().listen(this.statusPort, frame -> {
+            try {
+                this.signalsReceived.add(SignalCodec.decode(ByteBuffer.wrap(frame)));
             } catch (IOException e) {
+                System.out.println("Unknown object received.");
                 e.printStackTrace();
             }
         });
-        listeningThread.start();
     }
 
     @Override
     public void stopSignalListeningThread() {
-        this.signalHandlingRunning = false;
+        getServer().stopListening(this.statusPort, () -> this.signalsReceived.add(END_OF_SIGNALS));
     }
 
     @Override
     public void startSignalHandlingThread() {
         //Implementation of startSignalHandlingThread method
 
-        Thread signalHandlingThread = new Thread(() -> {
-            while (this.signalHandlingRunning | !this.signalsReceived.isEmpty()) {
-                if (!this.signalsReceived.isEmpty()) {
-                    Object signal = this.signalsReceived.poll();
-                    handleSignal(signal);
+        this.signalHandlingThread = new Thread(() -> {
+            try {
+                Object signal;
+                while ((signal = this.signalsReceived.take()) != END_OF_SIGNALS) {
+                    try {
+                        handleSignal(signal);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
                 }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
         });
-        signalHandlingThread.start();
+        this.signalHandlingThread.start();
+    }
+
+    @Override
+    public void waitForSignalHandling() {
+        // Implementation of waitForSignalHandling method
+
+        if (this.signalHandlingThread == null) {
+            return;
+        }
+        try {
+            this.signalHandlingThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
     }
 
     @Override
     public void handleSignal(Object signal) {
         // Implementation of handleSignal method
 
-        if (signal instanceof SlaveStatus) {
-            SlaveStatus statusSignal = (SlaveStatus) signal;
+        if (signal instanceof StatusSignal) {
+            StatusSignal statusSignal = (StatusSignal) signal;
+            SlaveStatus status = statusSignal.getStatus();
 
-            // Update the status of the sender in the slavesStatuses hashtable
-            this.slavesStatuses.put(statusSignal.getSender(), statusSignal);
+            // Update the status of the sender in the slavesStatuses hashtable, statuses never go backwards
+            SlaveStatus previousStatus = this.slavesStatuses.get(statusSignal.getSender());
+            if (previousStatus == null || previousStatus.getOrder() < status.getOrder()) {
+                this.slavesStatuses.put(statusSignal.getSender(), status);
+            }
+
+            // Release the waits on every status the slave has just reached (only for known slaves)
+            if (previousStatus != null) {
+                for (SlaveStatus reachedStatus : SlaveStatus.values()) {
+                    if (reachedStatus.getOrder() > previousStatus.getOrder() && reachedStatus.getOrder() <= status.getOrder()) {
+                        this.statusLatches.get(reachedStatus).countDown();
+                    }
+                }
+            }
+        } else if (signal instanceof SplitProgress) {
+            handleSplitProgress((SplitProgress) signal);
+        } else if (signal instanceof Heartbeat) {
+            this.metricsEndpoint.update((Heartbeat) signal);
+        } else if (signal instanceof PhaseTimes) {
+            PhaseTimes phaseTimes = (PhaseTimes) signal;
+            this.runReport.addSlavePhases(phaseTimes.getSender(), phaseTimes.getDurations());
+        } else if (signal instanceof FailureSignal) {
+            FailureSignal failureSignal = (FailureSignal) signal;
+            abortJob(failureSignal.getSender() + ": " + failureSignal.getReason());
         } else {
             System.out.println("Received signal is not a StatusSignal.");
         }
     }
 
     @Override
-    public void waitForGlobalStatus(SlaveStatus status) {
-        // Implementation of waitForGlobalStatus method
-
-        while (this.statusGlobalRunning) {
-            boolean allSlavesReachedStatus = true;
-            for (SlaveStatus slaveStatus : this.slavesStatuses.values()) {
-                if (slaveStatus.getOrder() < status.getOrder()) {
-                    allSlavesReachedStatus = false;
-                    break;
+    public void handleSplitProgress(SplitProgress progress) {
+        // Implementation of handleSplitProgress method
+
+        this.splitAttempts.progress(progress.getAttempt(), progress.getMappedBytes());
+        if (progress.isFailed()) {
+            if (this.splitAttempts.fail(progress.getAttempt())) {
+                System.out.println("Attempt " + progress.getAttempt() + " of split " + progress.getSplit() + " failed on " + progress.getSender() + " after " + progress.getMappedBytes() + " of " + progress.getLength() + " bytes");
+                relaunchSplit(progress.getSplit(), progress.getSender());
+            }
+        } else if (progress.isEnded()) {
+            if (this.splitAttempts.end(progress.getAttempt())) {
+                // First attempt of the split to end: the reducers keep its words and drop the ones of the other attempts, which are cancelled
+                System.out.println("Split " + progress.getSplit() + " committed from attempt " + progress.getAttempt() + " on " + progress.getSender());
+                CommandSignal command = SlaveCommand.COMMIT_SPLIT.with(progress.getSplit(), progress.getAttempt());
+                for (String slave : this.slaves) {
+                    sendCommand(slave, command);
                 }
+            } else if (this.splitAttempts.getCommittedAttempt(progress.getSplit()) < 0) {
+                // Ended before its progress covered the split, its words are incomplete
+                System.out.println("Attempt " + progress.getAttempt() + " of split " + progress.getSplit() + " ended on " + progress.getSender() + " after only " + progress.getMappedBytes() + " of " + progress.getLength() + " bytes, not committed");
+                relaunchSplit(progress.getSplit(), progress.getSender());
             }
-            if (allSlavesReachedStatus) {
-                System.out.println("All slaves are at least at status: " + status.toString());
-                break;
+        }
+    }
+
+    @Override
+    public void relaunchSplit(int split, String failedSlave) {
+        // Implementation of relaunchSplit method, launches another attempt of the split on the first idle slave, the one where it failed only if it is alone
+
+        ArrayList<String> candidates = new ArrayList<>(this.slaves);
+        if (candidates.size() > 1) {
+            candidates.remove(failedSlave);
+        }
+        Thread relaunchingThread = new Thread(() -> {
+            try {
+                while (this.splitAttempts.getCommittedAttempt(split) < 0 && this.failure == null) {
+                    String slave = this.splitAttempts.idleSlave(candidates);
+                    if (slave == null) {
+                        this.splitAttempts.awaitCommits(SPECULATION_INTERVAL);
+                        continue;
+                    }
+                    int attempt = this.splitAttempts.launch(split, slave);
+                    System.out.println("Split " + split + " relaunched, attempt " + attempt + " on " + slave);
+                    try (FileChannel channel = FileChannel.open(Paths.get(this.inputDataFilename), StandardOpenOption.READ)) {
+                        sendSplit(channel, slave, split, attempt);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                    return;
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
+        });
+        relaunchingThread.setDaemon(true);
+        relaunchingThread.start();
+    }
+
+    @Override
+    public void startMetricsEndpoint() {
+        // Implementation of startMetricsEndpoint method
+
+        if (this.metricsPort <= 0) {
+            return;
+        }
+        try {
+            this.metricsEndpoint.start(this.metricsPort);
+        } catch (IOException e) {
+            System.out.println("Metrics endpoint could not listen on port " + this.metricsPort);
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void stopMetricsEndpoint() {
+        this.metricsEndpoint.stop();
+    }
+
+    @Override
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    @Override
+    public void waitForGlobalStatus(SlaveStatus status) {
+        // Implementation of waitForGlobalStatus method
+
+        try {
+            this.statusLatches.get(status).await();
+            System.out.println("All slaves are at least at status: " + status.toString());
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
     }
 
     @Override
     public void inhibitsGlobalStatusWaitingThread() {
-        this.statusGlobalRunning = false;
+        for (CountDownLatch latch : this.statusLatches.values()) {
+            while (latch.getCount() > 0) {
+                latch.countDown();
+            }
+        }
     }
 
     // NOTE: Handling results of slaves
@@ -521,30 +780,39 @@ public class Master implements MasterInterface {
     public void startResultListeningThread() {
         // Implementation of startResultListeningThread method
 
-        Thread resultThread = new Thread(() -> {
-            try (ServerSocket serverSocket = new ServerSocket(RESULT_PORT)) {
-                while (this.resultHandlingRunning) {
-                    Socket clientSocket = serverSocket.accept();
-                    ObjectInputStream objectInputStream = new ObjectInputStream(clientSocket.getInputStream());
-                    try {
-                        Object word = objectInputStream.readObject();
-                        this.wordsReceived.add(word);
-                    } catch (ClassNotFoundException e) {
-                        System.out.println("Unknown object received.");
-                        e.printStackTrace();
-                    }
-                    clientSocket.close();
+        // The results are read with blocking streams rather than the server event loop: the merge pulls each stream at its own pace, which keeps the order of the stream and holds back the slaves that are ahead
+        try {
+            this.resultServerSocket = new ServerSocket(this.resultPort);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        Thread resultListeningThread = new Thread(() -> {
+            try {
+                for (int accepted = 0; accepted < this.slaves.size(); accepted++) {
+                    this.resultConnections.add(this.resultServerSocket.accept());
                 }
             } catch (IOException e) {
-                e.printStackTrace();
+                // The server socket is closed by stopResultListeningThread
+                if (!this.resultServerSocket.isClosed()) {
+                    e.printStackTrace();
+                }
             }
         });
-        resultThread.start();
+        resultListeningThread.start();
     }
 
     @Override
     public void stopResultListeningThread() {
-        this.resultHandlingRunning = false;
+        // The slaves that did not connect yet are not waited for anymore; the merge goes on with the accepted connections
+        try {
+            if (this.resultServerSocket != null) {
+                this.resultServerSocket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.resultConnections.add(END_OF_RESULTS);
     }
 
     @Override
@@ -553,30 +821,76 @@ public class Master implements MasterInterface {
 
         Thread resultHandlingThread = new Thread(() -> {
             try (BufferedWriter resultsWriter = new BufferedWriter(new FileWriter(this.outputResultsFilename))){
-                while (this.resultHandlingRunning | !this.wordsReceived.isEmpty()) {
-                    if (!this.wordsReceived.isEmpty()) {
-                        Object result = this.wordsReceived.poll();
-                        handleResult(result, resultsWriter);
-                    }
+                // Each slave sends its words in WordCount.RESULT_ORDER, so the global order only needs one word count per slave in memory
+                ResultMerger merger = new ResultMerger();
+                Object connection;
+                int connected = 0;
+                while (connected < this.slaves.size() && (connection = this.resultConnections.take()) != END_OF_RESULTS) {
+                    merger.add(((Socket) connection).getInputStream());
+                    connected++;
+                }
+                long merged;
+                if (this.snapshot != null) {
+                    // The counts of the appended lines are merged with the ones of the snapshot into the results, and into the next snapshot, kept aside until saveSnapshot
+                    merger.merge(this.snapshot::add);
+                    merged = this.snapshot.writeResults(resultsWriter, this.splitBoundaries[this.splitsUsed]);
+                    System.out.println(this.snapshot.getDeltaWords() + " counted words merged with the snapshot");
+                    this.runReport.put("deltaWords", this.snapshot.getDeltaWords());
+                } else {
+                    merged = merger.merge(wordCount -> handleResult(wordCount, resultsWriter));
                 }
-                this.termination = true;
-            } catch (IOException e){
+                this.resultStreams = connected;
+                System.out.println(merged + " words written to " + this.outputResultsFilename);
+                this.runReport.put("resultWords", merged);
+
+                this.reducerLoads = merger.getLoads();
+                double[] loads = new double[this.reducerLoads.length];
+                for (int reducer = 0; reducer < loads.length; reducer++) {
+                    loads[reducer] = this.reducerLoads[reducer];
+                }
+                double imbalance = PartitionSampler.imbalance(loads);
+                System.out.printf("Reducer load imbalance (max/mean occurrences): %.2f%n", imbalance);
+                this.runReport.put("reducerLoads", this.reducerLoads);
+                this.runReport.put("reducerImbalance", imbalance);
+            } catch (IOException | InterruptedException e){
                 e.printStackTrace();
             }
+            this.termination.countDown();
         });
         resultHandlingThread.start();
     }
 
+    @Override
+    public void saveSnapshot() {
+        // Implementation of saveSnapshot method, the snapshot only moves past the appended lines once all the slaves sent their results and terminated
+
+        if (this.snapshot == null) {
+            return;
+        }
+        boolean complete = this.failure == null && this.resultStreams == this.slaves.size();
+        for (SlaveStatus status : this.slavesStatuses.values()) {
+            complete &= status == SlaveStatus.TERMINATED;
+        }
+        try {
+            if (complete) {
+                this.snapshot.save(this.splitBoundaries[this.splitsUsed]);
+                System.out.println("Snapshot saved, it covers the input up to byte " + this.snapshot.getOffset());
+            } else {
+                this.snapshot.discard();
+                System.out.println("Results of " + this.resultStreams + " of the " + this.slaves.size() + " slaves only, the snapshot is kept at byte " + this.snapshot.getOffset() + " and the appended lines will be counted again");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.runReport.put("snapshotSaved", complete);
+    }
+
     @Override
     public void handleResult(Object signal, BufferedWriter resultsWriter) {
         // Implementation of handleResult method
 
         if (signal instanceof WordCount) {
-            WordCount wordCount = (WordCount) signal;
-
-            // Add the word to the results map
-            result.put(wordCount.getWord(), wordCount.getCount());
-            writeResult(wordCount, resultsWriter);
+            writeResult((WordCount) signal, resultsWriter);
         } else {
             System.out.println("Received signal is not a WordCount.");
         }
@@ -594,11 +908,82 @@ public class Master implements MasterInterface {
         }
     }
 
+    @Override
+    public void timePhase(String phase, Runnable step) {
+        if (this.failure != null) {
+            return; // the steps left once the job is aborted are skipped
+        }
+        this.runReport.time(phase, step);
+    }
+
+    @Override
+    public synchronized void abortJob(String reason) {
+        // Implementation of abortJob method
+
+        if (this.failure != null) {
+            return;
+        }
+        this.failure = reason;
+        this.runReport.put("failure", reason);
+        System.err.println("Job aborted: " + reason);
+
+        // The slaves stop and free the job, and the steps waiting for their statuses or for the results go on, to be skipped
+        CommandSignal command = SlaveCommand.ABORT.with();
+        for (String slave : this.slaves) {
+            sendCommand(slave, command);
+        }
+        inhibitsGlobalStatusWaitingThread();
+        this.termination.countDown();
+    }
+
+    @Override
+    public String getFailure() {
+        return this.failure;
+    }
+
+    @Override
+    public void writeRunReport() {
+        // Implementation of writeRunReport method, the report is run_report.json in the folder of the results
+
+        if (this.jobId != null) {
+            this.runReport.put("job", this.jobId);
+        }
+        this.runReport.put("input", this.inputDataFilename);
+        try {
+            this.runReport.put("inputBytes", Files.size(Paths.get(this.inputDataFilename)));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.runReport.put("slaves", this.slaves);
+        this.runReport.put("splits", this.splitsUsed);
+        this.runReport.put("incremental", this.incremental);
+        this.runReport.put("countedFrom", this.splitBoundaries[0]);
+        this.runReport.put("countedTo", this.splitBoundaries[this.splitsUsed]);
+        this.runReport.put("combinerCapacity", this.combinerCapacity);
+        this.runReport.put("offHeapReduce", this.offHeapReduce);
+        this.runReport.put("reduceMemoryBudget", this.reduceMemoryBudget);
+        this.runReport.put("hotWords", this.partitionTable.size());
+        this.runReport.put("speculativeExecution", this.speculativeExecution);
+
+        // The jobs of a scheduler may write their results in the same folder, each has its own report
+        String reportFilename = this.jobId != null ? RUN_REPORT_FILENAME.replace(".json", "_job" + this.jobId + ".json") : RUN_REPORT_FILENAME;
+        Path reportPath = Paths.get(this.outputResultsFilename).toAbsolutePath().resolveSibling(reportFilename);
+        try {
+            this.runReport.write(reportPath);
+            System.out.println("Run report written to " + reportPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public void waitForTermination() {
         // Implementation of waitForTermination method
 
-        while (!this.termination) {
+        try {
+            this.termination.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
     }
 
@@ -647,7 +1032,7 @@ public class Master implements MasterInterface {
         // Implementation of resolveHostname method
         
         try {
-            InetAddress ipAddress = InetAddress.getByName(slave + this.domain);
+            InetAddress ipAddress = InetAddress.getByName(SlaveAddress.host(slave) + this.domain);
             return ipAddress;
         } catch (UnknownHostException e) {
             e.printStackTrace();
@@ -655,6 +1040,24 @@ public class Master implements MasterInterface {
         return null;
     }
 
+    @Override
+    public String getDaemonArtifact(String slave) {
+        // Implementation of getDaemonArtifact method
+
+        InetAddress host = resolveSlaveHostname(slave);
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, SlaveAddress.statusPort(slave)), 5000);
+            socket.setSoTimeout(5000);
+            OutputStream outputStream = socket.getOutputStream();
+            SignalCodec.writeArtifact(outputStream, "");
+            outputStream.flush();
+            String hash = SignalCodec.readArtifact(socket.getInputStream());
+            return hash != null ? hash : ""; // a slave of a single run closes the connection without answering
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     @Override
     public void waitForSocketOpen(String slave){
         boolean socketOpen = false;
@@ -662,11 +1065,17 @@ public class Master implements MasterInterface {
 
         while (!socketOpen) {
             try {
-                Socket socket = new Socket(host.getHostAddress(), Slave.STATUS_PORT);
+                Socket socket = new Socket(host.getHostAddress(), SlaveAddress.statusPort(slave));
                 socketOpen = true;
                 socket.close();
-            } catch (Exception e) {
-                e.printStackTrace();
+            } catch (IOException e) {
+                // The slave is still starting, try again a bit later
+                try {
+                    Thread.sleep(SOCKET_RETRY_INTERVAL);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
         }
     }
@@ -675,9 +1084,7 @@ public class Master implements MasterInterface {
     public void sendMasterInfo(String slave) {
         // Implementation of sendMasterInfo method
 
-        SlaveCommand command = SlaveCommand.MASTER_INFO;
-        command.setParameters(getOwnAddress(), STATUS_PORT);
-
+        CommandSignal command = SlaveCommand.MASTER_INFO.with(getOwnAddress(), this.statusPort, slave);
         sendCommand(slave, command);
     }
 
@@ -685,9 +1092,7 @@ public class Master implements MasterInterface {
     public void sendSlaveInfo(String slave) {
         // Implementation of sendSlaveInfo method
 
-        SlaveCommand command = SlaveCommand.YOUR_INFO;
-        command.setParameters(slave, this.slavesSplitter.get(slave), domain);
-
+        CommandSignal command = SlaveCommand.YOUR_INFO.with(slave, this.slavesSplitter.get(slave), domain);
         sendCommand(slave, command);
     }
 
@@ -695,22 +1100,23 @@ public class Master implements MasterInterface {
     public void sendSlavesList(String slave) {
         // Implementation of sendSlavesList method
 
-        SlaveCommand command = SlaveCommand.SLAVES_LIST;
-        command.setParameters(slaves);
-
+        CommandSignal command = SlaveCommand.SLAVES_LIST.with(slaves, this.partitionTable);
         sendCommand(slave, command);
     }
 
     @Override
-    public void sendCommand(String slave, SlaveCommand command) {
+    public void sendCommand(String slave, CommandSignal command) {
         // Implementation of sendCommand method
 
         InetAddress ipAddress = resolveSlaveHostname(slave);
         System.out.println(ipAddress.getHostAddress());
         try {
-            Socket socket = new Socket(ipAddress.getHostAddress(), Slave.STATUS_PORT);
-            ObjectOutputStream outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.writeObject(command);
+            Socket socket = new Socket(ipAddress.getHostAddress(), SlaveAddress.statusPort(slave));
+            OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+            if (this.jobId != null) {
+                SignalCodec.writeJobHeader(outputStream, this.jobId);
+            }
+            SignalCodec.writeFrame(outputStream, command);
             outputStream.flush();
 
             // Close the output stream and socket connection
@@ -718,17 +1124,33 @@ public class Master implements MasterInterface {
             socket.close();
         } catch (IOException e) {
             // Handle any IO exceptions
-            System.out.println("Connection with slave " + slave + "(IP: " + ipAddress + ") refused on port " + Slave.STATUS_PORT);
+            System.out.println("Connection with slave " + slave + "(IP: " + ipAddress + ") refused on port " + SlaveAddress.statusPort(slave));
             e.printStackTrace();
         }
     }
 
+    @Override
+    public void setOffHeapReduce(boolean offHeapReduce) {
+        this.offHeapReduce = offHeapReduce;
+    }
+
+    @Override
+    public void setReduceMemoryBudget(long reduceMemoryBudget) {
+        this.reduceMemoryBudget = reduceMemoryBudget;
+    }
+
+    @Override
+    public void setSkewAwarePartitioning(boolean skewAwarePartitioning) {
+        this.skewAwarePartitioning = skewAwarePartitioning;
+    }
+
     @Override
     public void interconnectSlaves() {
         // Implementation of interconnectSlaves method
 
+        CommandSignal command = SlaveCommand.INTERCONNECT.with(this.offHeapReduce, this.reduceMemoryBudget, this.splitsUsed, this.speculativeExecution);
         for (String slave : this.slaves){
-            sendCommand(slave, SlaveCommand.INTERCONNECT);
+            sendCommand(slave, command);
         }
         waitForGlobalStatus(SlaveStatus.INTERCONNECTED);
     }
@@ -739,31 +1161,90 @@ public class Master implements MasterInterface {
     public void beginShuffleThread() {
         // Implementation of beginShuffleThread method
 
-        for (String slave : this.slavesSplitter.keySet()){
-            if (slavesSplitter.get(slave)){
-                sendCommand(slave, SlaveCommand.SHUFFLE_ON);
-            }
+        for (String slave : this.slaves){
+            sendCommand(slave, SlaveCommand.SHUFFLE_ON.with());
         }
         waitForGlobalStatus(SlaveStatus.SHUFFLE_ON);
     }
 
+    @Override
+    public void setCombinerCapacity(int combinerCapacity) {
+        this.combinerCapacity = combinerCapacity;
+    }
+
     @Override
     public void beginMap() {
         // Implementation of beginMap method
 
+        CommandSignal command = SlaveCommand.MAP.with(this.combinerCapacity);
         for (String slave : this.slaves){
-            sendCommand(slave, SlaveCommand.MAP);
+            sendCommand(slave, command);
+        }
+        waitForGlobalStatus(SlaveStatus.MAPING);
+
+        // The slaves map the chunks of their split as they arrive
+        if (this.speculativeExecution) {
+            startSpeculationThread();
         }
+        timePhase("sendSplits", this::sendSplits);
         waitForGlobalStatus(SlaveStatus.WAITING_REDUCE);
+        this.runReport.put("speculativeAttempts", this.splitAttempts.getSpeculativeAttempts());
+        this.runReport.put("speculativeWins", this.splitAttempts.getSpeculativeWins());
+        this.runReport.put("failedAttempts", this.splitAttempts.getFailedAttempts());
+        if (this.splitAttempts.getSpeculativeAttempts() > 0) {
+            System.out.println(this.splitAttempts.getSpeculativeAttempts() + " speculative attempts launched, " + this.splitAttempts.getSpeculativeWins() + " committed.\n");
+        }
+    }
+
+    @Override
+    public void startSpeculationThread() {
+        // Implementation of startSpeculationThread method
+
+        Thread speculationThread = new Thread(() -> {
+            try {
+                while (!this.splitAttempts.allCommitted() && this.failure == null) {
+                    this.splitAttempts.awaitCommits(SPECULATION_INTERVAL);
+                    int split = this.splitAttempts.findStraggler(SPECULATION_SLOWNESS, SPECULATION_MIN_TIME);
+                    if (split < 0) {
+                        continue;
+                    }
+                    String slave = this.splitAttempts.idleSlave(this.slaves);
+                    if (slave == null) {
+                        continue;
+                    }
+                    int attempt = this.splitAttempts.launch(split, slave);
+                    System.out.println("Split " + split + " is straggling, speculative attempt " + attempt + " on " + slave);
+                    Thread sendingThread = new Thread(() -> {
+                        try (FileChannel channel = FileChannel.open(Paths.get(this.inputDataFilename), StandardOpenOption.READ)) {
+                            sendSplit(channel, slave, split, attempt);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    });
+                    sendingThread.start();
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        speculationThread.setDaemon(true);
+        speculationThread.start();
+    }
+
+    @Override
+    public void setSpeculativeExecution(boolean speculativeExecution) {
+        this.speculativeExecution = speculativeExecution;
+    }
+
+    @Override
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
     }
 
     @Override
     public void beginReduce() {
-         // Implementation of beginReduce method
+        // Implementation of beginReduce method, the slaves reduce the words as they receive them, there is no command to send
 
-        for (String slave : this.slaves){
-            sendCommand(slave, SlaveCommand.REDUCE);
-        }
         waitForGlobalStatus(SlaveStatus.REDUCE_DONE);
     }
 
@@ -771,12 +1252,70 @@ public class Master implements MasterInterface {
     public void requestResults() {
         // Implementation of requestResults method
 
+        CommandSignal command = SlaveCommand.SEND_RESULTS.with(this.resultPort);
         for (String slave : this.slaves){
-            sendCommand(slave, SlaveCommand.SEND_RESULTS);
+            sendCommand(slave, command);
         }
         waitForGlobalStatus(SlaveStatus.TERMINATED);
     }
 
+    @Override
+    public ArrayList<String> getSlaves() {
+        return this.slaves;
+    }
+
+    @Override
+    public void setJobId(Integer jobId) {
+        this.jobId = jobId;
+    }
+
+    @Override
+    public void setPorts(int statusPort, int resultPort) {
+        this.statusPort = statusPort;
+        this.resultPort = resultPort;
+    }
+
+    @Override
+    public void runMapReduce() {
+        // Implementation of runMapReduce method
+
+        // Invoke the setting-up of connections //HACK: use waitforGlobalStatus inside the methods
+        timePhase("setUpConnections", this::setUpConnections);
+        timePhase("interconnectSlaves", this::interconnectSlaves);
+
+        // Invoke the launch of computation; the map includes the sending of the splits, also timed on its own
+        timePhase("shuffle", this::beginShuffleThread);
+        timePhase("map", this::beginMap);
+        timePhase("reduce", this::beginReduce);
+
+        // Invoke the start of results threads handlers and then request the results, unless the job was aborted
+        boolean resultsRequested = this.failure == null;
+        if (resultsRequested) {
+            startResultListeningThread();
+            startResultHandlingThread();
+            timePhase("requestResults", this::requestResults);
+        }
+
+        // Invoke the stop of listening of slaves statuses; handling will eventually stop because all status are already set to TERMINATE
+        stopSignalListeningThread();
+        inhibitsGlobalStatusWaitingThread();
+
+        // Invoke the stop of the listening of result; handling will continue until it run out of result to handle
+        if (resultsRequested) {
+            stopResultListeningThread();
+            timePhase("mergeResults", this::waitForTermination);
+        }
+
+        // The last statuses and phase reports of the slaves must be handled before they are used by the snapshot and the report
+        waitForSignalHandling();
+        saveSnapshot();
+        writeRunReport();
+        stopMetricsEndpoint();
+        if (this.failure != null) {
+            throw new IllegalStateException("Job aborted: " + this.failure);
+        }
+    }
+
     // NOTE: MAIN PROGRAM
 
     public static void main(String[] args) {
@@ -789,46 +1328,28 @@ public class Master implements MasterInterface {
         int maxMachineUsed = 3;
 
         Master master = new Master(inputDataFilename, outputResultsFilename, computersFilename, user, domain, maxMachineUsed);
+        master.setIncremental(true); // the input only grows by appending, each run counts what was appended since the previous one
         
-        // Invoke the pre-processing
-        master.loadComputers();
-        master.deleteExistingSplits();
-        master.splitInputData();
+        // Invoke the pre-processing; every step is timed for the run report
+        master.timePhase("loadComputers", master::loadComputers);
+        master.timePhase("deleteExistingSplits", master::deleteExistingSplits);
+        master.timePhase("splitInputData", master::splitInputData);
         
-        // Invoke the deploy application
-        master.cleanSlavesFolders();
-        master.sendSplits();
-        master.sendSlaves();
-        master.compileSlaves();
+        // Invoke the deploy application; the slave jar is built first, and only sent to the slaves that do not have it
+        master.timePhase("compileSlaves", master::compileSlaves);
+        master.timePhase("cleanSlavesFolders", master::cleanSlavesFolders);
+        master.timePhase("sendSlaves", master::sendSlaves);
         
         // Start the status threads handlers
         master.startSignalListeningThread();
         master.startSignalHandlingThread();
+        master.startMetricsEndpoint();
 
         // Launch the slaves
-        master.launchSlaves();
-
-        // Invoke the setting-up of connections //HACK: use waitforGlobalStatus inside the methods
-        master.setUpConnections();
-        master.interconnectSlaves();
+        master.timePhase("launchSlaves", master::launchSlaves);
 
-        // Invoke the launch of computation
-        master.beginShuffleThread();
-        master.beginMap();
-        master.beginReduce();
-
-        // Invoke the start of results threads handlers and then request the results
-        master.startResultListeningThread();
-        master.startResultHandlingThread();
-        master.requestResults();
-
-        // Invoke the stop of listening of slaves statuses; handling will eventually stop because all status are already set to TERMINATE
-        master.stopSignalListeningThread();
-        master.inhibitsGlobalStatusWaitingThread();
-
-        // Invoke the stop of the listening of result; handling will continue until it run out of result to handle
-        master.stopResultListeningThread();
-        master.waitForTermination();
+        // Invoke the map reduce on the launched slaves
+        master.runMapReduce();
     }
 }
 
@@ -4,65 +4,125 @@ package project.src.Master;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 
-import project.src.Slave.Slave.WordCount;
-import project.src.Slave.Slave.SlaveCommand;
-import project.src.Slave.Slave.SlaveStatus;
+import project.src.Slave.Signals.CommandSignal;
+import project.src.Slave.Signals.WordCount;
+import project.src.Slave.Signals.SlaveStatus;
+import project.src.Slave.Signals.SplitProgress;
 
 public interface MasterInterface {
     /* Attributes */
     final int STATUS_PORT = 9999; // Port used to receive slave statuses
     final int RESULT_PORT = 8888; // Port used to receive slave results
+    final int DECODING_THREADS = 4; // Number of workers decoding the frames received from the slaves
+    final int SERVER_BUFFER_SIZE = 64 * 1024; // Size of the pooled direct buffers in which slave connections are read
+    final int SERVER_POOLED_BUFFERS = 64; // Max number of free direct buffers kept for reuse
     final int MAX_COMMANDS_PER_MINUTE = 10; // Maximum number of commands allowed per minute
     final long TIME_WINDOW = 61000; // Time window in milliseconds (1 minute)
+    final long DEPLOY_COMMAND_TIMEOUT = 120000; // Time in milliseconds after which a deploy command on a slave is killed and counted as failed
+    final String SLAVE_SOURCES_FOLDER = "project/src/Slave/"; // Sources of the slave, compiled by the master
+    final String SLAVE_JAR_FILENAME = "project/slave.jar"; // Jar of the slave built by the master, cached by the slaves under its hash
+    final long LAUNCH_CHECK_TIME = 1000; // Time in milliseconds a launched slave must stay up to count as launched
+    final int COMBINER_CAPACITY = 100000; // Default max number of distinct words pre-aggregated by a mapper before shuffle (0 disables the combiner)
+    final boolean OFF_HEAP_REDUCE = false; // Default choice of the reducers to keep their counts outside of the heap, keyed by the bytes of the words
+    final long REDUCE_MEMORY_BUDGET = 0; // Default memory of the counts of a reducer beyond which they are spilled to disk (0 for half of the heap of the slave)
+    final boolean SKEW_AWARE_PARTITIONING = true; // Default choice to sample the input and spread its hot words over several reducers, instead of plain hash partitioning
+    final int SAMPLE_BLOCKS = 64; // Number of blocks, evenly spread over the input, read by the sampling of the words
+    final long SAMPLE_BLOCK_SIZE = 256 * 1024; // Max size of each sampled block
+    final double HOT_KEY_LOAD = 0.5; // Share of the fair load of a reducer above which a sampled word is hot, and max load of each reducer it is spread over
+    final boolean SPECULATIVE_EXECUTION = true; // Default choice to map again, on an idle slave, a split whose attempt is much slower than the others (the first attempt to end wins)
+    final long SPECULATION_INTERVAL = 1000; // Time in milliseconds between two searches of a straggling split
+    final long SPECULATION_MIN_TIME = 5000; // Time in milliseconds an attempt runs before its rate is compared to the others
+    final double SPECULATION_SLOWNESS = 0.5; // Share of the median mapping rate below which an attempt is straggling
+    final int METRICS_PORT = 9100; // Default port of the HTTP endpoint serving the slave metrics in Prometheus text format (0 disables it)
+    final String RUN_REPORT_FILENAME = "run_report.json"; // JSON report of the run, written in the folder of the results (run_report_job<id>.json for a job of slave daemons)
+    final long SOCKET_RETRY_INTERVAL = 100; // Time in milliseconds between two tries to connect to a slave that is starting
+    final boolean INCREMENTAL = false; // Default choice to count only the lines appended to the input since the previous run, and add their counts to its snapshot
+    final String SNAPSHOT_SUFFIX = ".snapshot"; // Suffix of the results filename giving the snapshot of the counts and of the offset of the input they cover
 
 
     /* Methods */
 
     // Inside master
-    void loadComputers(); // Store all reachable machines from computersFilename into map slaveStatuses, with idle status
+    void loadComputers(); // Store all reachable machines from computersFilename ("hostname [map threads]" per line) into map slaveStatuses, with idle status
+    void addSlave(String slave, Integer mapParallelism); // Add a slave with idle status, named "host" or "host:statusPort:shufflePort" (see SlaveAddress), with its number of map threads (null for all its cores)
+    void initStatusLatches(); // Create for each status a latch counting the slaves that have not reached it yet
     void deleteExistingSplits(); // Delete splits in ./splits/
-    void splitInputData(); // Split the input data into max computers.size() splits (parcouring one line after another and write it in one split text file)
+    void splitInputData(); // Cut the input data into max computers.size() ranges of bytes ending on a line, without copying it (only a short scan around each boundary), and sample it to build the partition table; when incremental, only the lines after the offset of the snapshot are cut
 
     // Deploy
-    int executeCommand(ProcessBuilder processBuilder) throws IOException, InterruptedException; // Executes a cmd, is used for scp and ssh
+    void waitForCommandSlot(); // Block until a command can be executed without going over MAX_COMMANDS_PER_MINUTE, whichever thread executes it
+    int executeCommand(ProcessBuilder processBuilder) throws IOException, InterruptedException; // Executes a cmd, is used for scp and ssh; killed after DEPLOY_COMMAND_TIMEOUT, with exit code -1
+    Process startCommand(ProcessBuilder processBuilder) throws IOException; // Starts a cmd without waiting for it, within the same limit, is used for the ssh sessions of the slaves
+    boolean deployOnSlaves(String step, DeployStep deployStep); // Run a deploy step on all slaves at once, one thread per slave, and report the slaves on which it failed; true if it succeeded on all of them
     boolean isMachineReachable(String remoteMachine, String actionTried); // Check the SSH reachability of a machine (standard timeout)
-    void cleanSlavesFolders(); // Check if the folder ../$user/splits exists, if so, delete all its content; if not, create it (eventually checking if ../$user/ folder exists)
-    void sendSplits(); // Send the splits, each to one different machine, using SCP (checking for failures)
-    void sendSlaves(); // Send the Slave.java to all used machines, using SCP (checking for failures)
-    void compileSlaves(); // Compile the Slaves.java
-    void launchSlaves(); // Launch the Slave.class on each used machine (checking for failures), they will open a listening thread on port 9999 to handle master signals
+    void compileSlaves(); // Compile the Slave.java along with the sources it uses, once on the master, into a jar named by its SHA-256 hash (see SlaveArtifact); throws IllegalStateException if it fails, as the slaves cannot be deployed
+    void cleanSlavesFolders(); // On all slaves at once: delete /tmp/$user/project/ and create its splits/ folder, keeping the cache of the slave jar in /tmp/$user/cache/
+    void sendSlaves(); // Send the slave jar at once to all used machines that do not have it in their cache yet, using SCP (checking for failures), and remove the other versions
+    void launchSlaves(); // Launch the Slave from the cached jar on all used machines at once (checking for failures), with its number of map threads if set, without waiting for them to end; they will open a listening thread on port 9999 to handle master signals. With a job id, launch a SlaveDaemon instead, unless one is already listening
 
     // Handling statuses of slaves
-    void startSignalListeningThread(); // Start a thread that listens on port STATUS_PORT and enqueues signals received in signalsReceived
+    void startSignalListeningThread(); // Listen on the status port (STATUS_PORT by default) with the server event loop, decode the frames received on the server workers, and enqueue the signals in signalsReceived
     void stopSignalListeningThread(); // Stopping the listening for new signal on STATUS_PORT
-    void startSignalHandlingThread(); // Start a thread that keeps checking if signalsReceived is not empty, and if not, handle the first signal
-    void handleSignal(Object signal); // Handle the signal and dequeue it; it should be a status from a slave
-    void waitForGlobalStatus(SlaveStatus status); // Wait for all statuses of slaves to be at least the status in the argument
-    void inhibitsGlobalStatusWaitingThread(); // Inhibits any future wait for status
+    void startSignalHandlingThread(); // Start a thread that blocks on signalsReceived, and handle the signals one by one until the status port is drained
+    void waitForSignalHandling(); // Block until the signal handling thread has handled every signal received before the status port was drained
+    void handleSignal(Object signal); // Handle the signal and dequeue it; it should be a status from a slave, that never makes its status go backwards, the progress of a split, a heartbeat with the counters of a slave, or the failure of a slave, which aborts the job
+    void handleSplitProgress(SplitProgress progress); // Record the progress of an attempt; the first attempt of a split to end having mapped all of it is committed with the command "commitSplit" to all slaves, a failed one is relaunched
+    void relaunchSplit(int split, String failedSlave); // Launch another attempt of a split whose attempt failed, on an idle slave other than the one where it failed
+    void startMetricsEndpoint(); // Serve the last heartbeat of each slave over HTTP on metricsPort, at /metrics in Prometheus text format
+    void stopMetricsEndpoint(); // Stop the HTTP endpoint of the metrics
+    void setMetricsPort(int metricsPort); // Set the port of the metrics endpoint (0 disables it)
+    void waitForGlobalStatus(SlaveStatus status); // Block on the latch of the status, until all statuses of slaves are at least the status in the argument
+    void inhibitsGlobalStatusWaitingThread(); // Inhibits any future wait for status, by releasing all the latches
 
     // Handling results of slaves
-    void startResultListeningThread(); // Start a thread that listens on port RESULT_PORT and enqueues signals received in signalsReceived
-    void stopResultListeningThread(); // Stopping the listening for new signal on RESULT_PORT
-    void startResultHandlingThread(); // Start a thread that keeps checking if wordsReceived is not empty, and if not, handle the first signal
-    void handleResult(Object signal, BufferedWriter resultsWriter); // Handle the signal and dequeue it; it should be a word followed by its count. Add it to the result map (key=word, value=count)
+    void startResultListeningThread(); // Listen on the result port (RESULT_PORT by default), and enqueue the result connection of each slave in resultConnections
+    void stopResultListeningThread(); // Close RESULT_PORT; the handling merges the connections accepted so far
+    void startResultHandlingThread(); // Start a thread that takes the result connections of all slaves, and merges their sorted streams into the output file in WordCount.RESULT_ORDER
+    void handleResult(Object signal, BufferedWriter resultsWriter); // Handle the signal given by the merge; it should be a word followed by its count, written to the output file
     void writeResult(WordCount wordCount, BufferedWriter resultsWriter); // Write the word with its count into the output file
-    void waitForTermination(); // Wait for the handling to terminate
+    void waitForTermination(); // Block until the handling terminates
+    void saveSnapshot(); // When incremental, replace the snapshot by the counts written with the results if all slaves sent their results and terminated, otherwise keep it
+    void timePhase(String phase, Runnable step); // Run a step of the master and add its wall time to the phase in the run report, unless the job was aborted
+    void abortJob(String reason); // Abort the job: every slave is told to stop with the command "abort", the waits for their statuses and results are released, the speculation stops, and runMapReduce skips the steps left, closes its ports and fails with the reason
+    String getFailure(); // Reason why the job was aborted, null if it was not
+    void writeRunReport(); // Write the run report next to the results: wall time of the steps of the master, phases reported by the slaves, settings, reducer loads and speculation
 
     // Setup connections
     InetAddress getOwnAddress(); // Get the own adress to be able to send it to slaves
     InetAddress resolveSlaveHostname(String slave); // Retrieve the ip adress from a string
-    void waitForSocketOpen(String slave); // wait for a server to be open
-    void sendCommand(String slave, SlaveCommand command);
+    String getDaemonArtifact(String slave); // Hash of the jar of the slave daemon listening on the command port of the slave, empty if it cannot tell (no jar, or not a daemon), null if nothing listens
+    void waitForSocketOpen(String slave); // wait for the command server of the slave to be open, trying again every SOCKET_RETRY_INTERVAL
+    void sendCommand(String slave, CommandSignal command);
     void setUpConnections(); // Send to each slave the address and port of the master, the address of the slave, and the list of used slaves
-    void sendMasterInfo(String slave); // Send the info of the master (address + STATUS_PORT) to the slave
+    void sendMasterInfo(String slave); // Send the info of the master (address + status port) to the slave, with the name under which it reports its statuses
     void sendSlaveInfo(String slave); // Send the info (address + boolean splitter) of the slave to them (splitter is true if the slave has been assigned to a split, false otherwise)
-    void sendSlavesList(String slave); // Send the list of slaves (addresses that are keys in slavesStatuses) to the slave
+    void sendSlavesList(String slave); // Send the list of slaves (addresses that are keys in slavesStatuses) to the slave, with the partition table of the hot words
+    void setSkewAwarePartitioning(boolean skewAwarePartitioning); // Set whether the hot words found by sampling are spread over several reducers, sent with the list of slaves
+    void setOffHeapReduce(boolean offHeapReduce); // Set whether the reducers keep their counts off-heap, sent with the "interconnect" command
+    void setReduceMemoryBudget(long reduceMemoryBudget); // Set the memory budget of the reducers, sent with the "interconnect" command
     void interconnectSlaves(); // Send the command "interconnect" to all slaves; they will handle it and create a fully connected network between all of them on another port (8888) by starting a thread that can enqueue received words
 
     // Steps of the map reduce
-    void beginShuffleThread(); // Send the command "shuffleOn" to all slaves that have a split; they will handle it and start a thread that dequeues the words found, computes a hashcode on it, and sends it to the correct slave machine according to the hash (note that the hash has to be something quite uniform, and hashCode is not considering only small words) 
-    void beginMap(); // Send to each slave that has a split the command "map"; they will handle it, detect all words in their split, and put them one by one in the words queue, ready to be dequeued by the shuffleThread
-    void beginReduce(); // Send the command "reduce" to each slave; they will start another thread that dequeues the words and stores them in a map (for each word, it stores the number of occurrences as the value)
+    void beginShuffleThread(); // Send the command "shuffleOn" to all slaves (the ones without a split only open and close their streams); they will handle it and start a thread that dequeues the words found, computes a hashcode on it, and sends it to the correct slave machine according to the hash (note that the hash has to be something quite uniform, and hashCode is not considering only small words) 
+    void sendSplits(); // Send the splits in parallel, each to one different machine, streaming its range of the input file after a SPLIT command on port Slave.STATUS_PORT (checking for failures); attempt i of split i
+    boolean sendSplit(FileChannel channel, String slave, int split, int attempt); // Send the SPLIT command and then the bytes of the split with FileChannel.transferTo on the same connection
+    void startSpeculationThread(); // Start the thread that launches a second attempt of a straggling split on an idle slave, until all splits are committed
+    void setSpeculativeExecution(boolean speculativeExecution); // Set whether straggling splits are speculated, sent with the "interconnect" command
+    void setIncremental(boolean incremental); // Set whether only the lines appended since the previous run are counted, their counts being merged into the snapshot written next to the results
+    void setCombinerCapacity(int combinerCapacity); // Set the capacity of the map-side combiner sent with the "map" command (0 disables it)
+    void beginMap(); // Send to each slave the command "map", then send the splits; the slaves detect all words of each chunk of their split as soon as it has arrived, and put them one by one in the words queue, ready to be dequeued by the shuffleThread
+    void beginReduce(); // Wait for all slaves to be REDUCE_DONE; they count the words in a map as they receive them (for each word, it stores the number of occurrences as the value), and are done once every slave has ended its stream to them
     void requestResults(); // Send the command "sendResults - RESULT_PORT" to all slaves; they will handle it and send all the words they counted one by one. After it is over, terminate itself
+    ArrayList<String> getSlaves(); // Slaves added by loadComputers or addSlave, in their order
+    void setJobId(Integer jobId); // Run on slave daemons as this job: every connection to a slave starts with the id, which its daemon uses to give it to the state of the job (null for slaves that live for one job)
+    void setPorts(int statusPort, int resultPort); // Set the ports on which the statuses and the results of the slaves are received
+    void runMapReduce(); // Once the slaves are launched: set up the connections, run the map, shuffle and reduce, merge the results and write the run report
+
+    // Deploy step on one slave, for deployOnSlaves
+    interface DeployStep {
+        boolean run(String slave, String remoteMachine) throws IOException, InterruptedException; // true if the step succeeded on the slave
+    }
 }
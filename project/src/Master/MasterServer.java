@@ -0,0 +1,313 @@
+package project.src.Master;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class MasterServer {
+    /* NOTE: Attributes */
+
+    private final Selector selector; // multiplexes the listening ports and all the slave connections
+    private final BufferPool bufferPool; // direct buffers in which the connections are read
+    private final ExecutorService decodingPool; // workers to which the complete frames are handed, one connection at a time per worker
+
+    private final HashMap<Integer, Listener> listeners = new HashMap<>(); // listeners by port, only used by the event loop
+    private final ConcurrentLinkedQueue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>(); // actions to run on the event loop
+
+    private volatile boolean running = true;
+
+    // NOTE: Constructor
+    public MasterServer(int decodingThreads, int bufferSize, int maxPooledBuffers) throws IOException {
+        this.selector = Selector.open();
+        this.bufferPool = new BufferPool(bufferSize, maxPooledBuffers);
+        this.decodingPool = Executors.newFixedThreadPool(decodingThreads);
+    }
+
+    /* NOTE: Methods */
+
+    public void start() {
+        // Start the event loop thread
+
+        Thread eventLoopThread = new Thread(() -> {
+            while (this.running) {
+                try {
+                    this.selector.select(100);
+                    Runnable task;
+                    while ((task = this.pendingTasks.poll()) != null) {
+                        task.run();
+                    }
+                    Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept(key);
+                        } else if (key.isReadable()) {
+                            read(key);
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            close();
+        });
+        eventLoopThread.start();
+    }
+
+    public void listen(int port, Consumer<byte[]> frameHandler) {
+        // Accept the connections on the port; the body of every frame received is given to frameHandler on a worker, in arrival order for the frames of a connection
+
+        // The port is bound before returning, so that the slaves told about it right after can connect; the connections wait in the backlog until the event loop registers it
+        ServerSocketChannel serverChannel;
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        runOnEventLoop(() -> {
+            try {
+                Listener listener = new Listener(port, serverChannel, frameHandler);
+                serverChannel.register(this.selector, SelectionKey.OP_ACCEPT, listener);
+                this.listeners.put(port, listener);
+                System.out.println("Listening on port " + port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    public void stopListening(int port, Runnable onDrained) {
+        // Stop accepting connections on the port; onDrained runs once every connection accepted on it is closed and its frames are handled
+
+        runOnEventLoop(() -> {
+            Listener listener = this.listeners.get(port);
+            if (listener == null) {
+                if (onDrained != null) {
+                    onDrained.run();
+                }
+                return;
+            }
+            try {
+                // Accept the connections that are already waiting before closing the port
+                this.selector.selectNow();
+                SelectionKey serverKey = listener.serverChannel.keyFor(this.selector);
+                if (serverKey != null && serverKey.isValid() && serverKey.isAcceptable()) {
+                    accept(serverKey);
+                }
+                listener.serverChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            listener.stop(onDrained);
+            checkDrained(listener);
+        });
+    }
+
+    private void runOnEventLoop(Runnable task) {
+        this.pendingTasks.add(task);
+        this.selector.wakeup();
+    }
+
+    private void accept(SelectionKey key) throws IOException {
+        Listener listener = (Listener) key.attachment();
+        SocketChannel channel;
+        while ((channel = listener.serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            try {
+                channel.register(this.selector, SelectionKey.OP_READ, new Connection(listener, this.bufferPool.acquire()));
+                listener.openConnections++;
+            } catch (ClosedChannelException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void read(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        int read;
+        try {
+            read = channel.read(connection.buffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            read = -1;
+        }
+        if (read > 0) {
+            extractFrames(connection);
+        }
+        if (read == -1) {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            this.bufferPool.release(connection.buffer);
+            connection.listener.openConnections--;
+            checkDrained(connection.listener);
+        }
+    }
+
+    private void extractFrames(Connection connection) {
+        // Hand every complete [varint length][body] frame of the buffer to the workers, and keep the incomplete end
+
+        ByteBuffer buffer = connection.buffer;
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            int length = 0;
+            boolean lengthComplete = false;
+            for (int shift = 0; buffer.hasRemaining(); shift += 7) {
+                byte b = buffer.get();
+                length |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    lengthComplete = true;
+                    break;
+                }
+            }
+            if (!lengthComplete || buffer.remaining() < length) {
+                int frameSize = buffer.position() - start + length;
+                buffer.position(start);
+                if (lengthComplete && frameSize > buffer.capacity()) {
+                    // The frame does not fit in a pooled buffer: move to a buffer of its size
+                    ByteBuffer larger = ByteBuffer.allocate(frameSize);
+                    larger.put(buffer);
+                    this.bufferPool.release(buffer);
+                    connection.buffer = larger;
+                    return;
+                }
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(body);
+            dispatch(connection, body);
+        }
+        buffer.compact();
+    }
+
+    private void dispatch(Connection connection, byte[] body) {
+        // The frames of a connection are handled by one worker at a time, in arrival order; the connections are handled in parallel
+
+        Listener listener = connection.listener;
+        synchronized (listener) {
+            listener.pendingFrames++;
+        }
+        synchronized (connection) {
+            connection.frames.add(body);
+            if (connection.handling) {
+                return;
+            }
+            connection.handling = true;
+        }
+        this.decodingPool.execute(() -> handleFrames(connection));
+    }
+
+    private void handleFrames(Connection connection) {
+        // Run on a worker, until the connection has no frame left
+
+        Listener listener = connection.listener;
+        while (true) {
+            byte[] body;
+            synchronized (connection) {
+                body = connection.frames.poll();
+                if (body == null) {
+                    connection.handling = false;
+                    break;
+                }
+            }
+            try {
+                listener.frameHandler.accept(body);
+            } catch (RuntimeException e) {
+                System.out.println("Unknown object received.");
+                e.printStackTrace();
+            }
+            synchronized (listener) {
+                listener.pendingFrames--;
+            }
+        }
+        runOnEventLoop(() -> checkDrained(listener));
+    }
+
+    private void checkDrained(Listener listener) {
+        // Only called on the event loop
+
+        Runnable onDrained = null;
+        synchronized (listener) {
+            if (listener.stopping && listener.openConnections == 0 && listener.pendingFrames == 0 && this.listeners.remove(listener.port) != null) {
+                onDrained = listener.onDrained;
+            }
+        }
+        if (onDrained != null) {
+            onDrained.run();
+        }
+        if (this.listeners.isEmpty()) {
+            this.running = false;
+        }
+    }
+
+    private void close() {
+        this.decodingPool.shutdown();
+        try {
+            this.decodingPool.awaitTermination(1, TimeUnit.MINUTES);
+            this.selector.close();
+        } catch (InterruptedException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /* NOTE: Connection states */
+
+    private static class Listener {
+        private final int port;
+        private final ServerSocketChannel serverChannel;
+        private final Consumer<byte[]> frameHandler;
+
+        private int openConnections = 0; // connections accepted and not yet closed
+        private int pendingFrames = 0; // frames handed to the workers and not yet handled
+        private boolean stopping = false;
+        private Runnable onDrained;
+
+        private Listener(int port, ServerSocketChannel serverChannel, Consumer<byte[]> frameHandler) {
+            this.port = port;
+            this.serverChannel = serverChannel;
+            this.frameHandler = frameHandler;
+        }
+
+        private synchronized void stop(Runnable onDrained) {
+            this.stopping = true;
+            this.onDrained = onDrained;
+        }
+    }
+
+    private static class Connection {
+        private final Listener listener;
+        private ByteBuffer buffer; // pooled buffer, replaced by a larger one for frames bigger than it
+        private final ArrayDeque<byte[]> frames = new ArrayDeque<>(); // complete frames not handled yet, in arrival order
+        private boolean handling = false; // a worker is handling the frames, the next ones are left to it
+
+        private Connection(Listener listener, ByteBuffer buffer) {
+            this.listener = listener;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package project.src.Master;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import project.src.Slave.Signals.Heartbeat;
+
+public class MetricsEndpoint {
+    /* NOTE: Attributes */
+
+    public static final String PATH = "/metrics";
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8"; // Prometheus text exposition format
+
+    private final ConcurrentHashMap<String, Heartbeat> heartbeats = new ConcurrentHashMap<>(); // last heartbeat of each slave
+    private final ConcurrentHashMap<String, Long> heartbeatTimes = new ConcurrentHashMap<>(); // time at which it was received
+    private HttpServer server;
+
+    /* NOTE: Methods */
+
+    public void update(Heartbeat heartbeat) {
+        this.heartbeats.put(heartbeat.getSender(), heartbeat);
+        this.heartbeatTimes.put(heartbeat.getSender(), System.currentTimeMillis());
+    }
+
+    public void start(int port) throws IOException {
+        // Serve the metrics on http://<master>:port/metrics, on a thread of the HTTP server
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext(PATH, this::handle);
+        this.server.start();
+        System.out.println("Metrics served on port " + port + PATH);
+    }
+
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    public String render() {
+        // The counters of the last heartbeat of every slave, one family per metric, the slaves in name order
+
+        TreeMap<String, Heartbeat> heartbeats = new TreeMap<>(this.heartbeats);
+        StringBuilder text = new StringBuilder();
+        family(text, heartbeats, "wordcount_slave_bytes_read_total", "counter", "Bytes of splits received by the slave", Heartbeat::getBytesRead);
+        family(text, heartbeats, "wordcount_slave_bytes_mapped_total", "counter", "Bytes of splits tokenized by the slave", Heartbeat::getBytesMapped);
+        family(text, heartbeats, "wordcount_slave_tokens_total", "counter", "Words found by the map tasks of the slave, before the combiner", Heartbeat::getTokens);
+        family(text, heartbeats, "wordcount_slave_shuffle_queue_depth", "gauge", "Word counts waiting for the shuffle of the slave", Heartbeat::getShuffleQueueDepth);
+        family(text, heartbeats, "wordcount_slave_command_queue_depth", "gauge", "Commands waiting to be handled by the slave", Heartbeat::getCommandQueueDepth);
+        family(text, heartbeats, "wordcount_slave_heap_used_bytes", "gauge", "Heap used by the slave", Heartbeat::getHeapUsed);
+        family(text, heartbeats, "wordcount_slave_heap_max_bytes", "gauge", "Max heap of the slave", Heartbeat::getHeapMax);
+
+        header(text, "wordcount_shuffle_records_sent_total", "counter", "Word counts shuffled by the slave to the peer");
+        for (Heartbeat heartbeat : heartbeats.values()) {
+            peerSamples(text, "wordcount_shuffle_records_sent_total", heartbeat.getSender(), heartbeat.getRecordsSent());
+        }
+        header(text, "wordcount_shuffle_records_received_total", "counter", "Word counts shuffled to the slave by the peer");
+        for (Heartbeat heartbeat : heartbeats.values()) {
+            peerSamples(text, "wordcount_shuffle_records_received_total", heartbeat.getSender(), heartbeat.getRecordsReceived());
+        }
+
+        header(text, "wordcount_slave_heartbeat_age_seconds", "gauge", "Time since the last heartbeat of the slave");
+        long now = System.currentTimeMillis();
+        for (String slave : heartbeats.keySet()) {
+            text.append("wordcount_slave_heartbeat_age_seconds{slave=\"").append(escape(slave)).append("\"} ").append((now - this.heartbeatTimes.get(slave)) / 1000.0).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void family(StringBuilder text, TreeMap<String, Heartbeat> heartbeats, String name, String type, String help, ToLongFunction<Heartbeat> value) {
+        header(text, name, type, help);
+        for (Heartbeat heartbeat : heartbeats.values()) {
+            text.append(name).append("{slave=\"").append(escape(heartbeat.getSender())).append("\"} ").append(value.applyAsLong(heartbeat)).append('\n');
+        }
+    }
+
+    private static void peerSamples(StringBuilder text, String name, String slave, Map<String, Long> records) {
+        for (Map.Entry<String, Long> entry : new TreeMap<>(records).entrySet()) {
+            text.append(name).append("{slave=\"").append(escape(slave)).append("\",peer=\"").append(escape(entry.getKey())).append("\"} ").append(entry.getValue()).append('\n');
+        }
+    }
+
+    static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    static String escape(String label) {
+        // Label values escape the backslash, the double quote and the line feed
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
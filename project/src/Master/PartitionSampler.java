@@ -0,0 +1,80 @@
+package project.src.Master;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import project.src.Slave.ByteSliceCountTable;
+import project.src.Slave.HashPartitioner;
+import project.src.Slave.SplitTokenizer;
+import project.src.Slave.Signals.PartitionTable;
+
+public class PartitionSampler {
+    /* NOTE: Attributes */
+
+    private final ByteSliceCountTable counts = new ByteSliceCountTable(); // occurrences of the sampled words
+    private long sampledWords = 0;
+
+    /* NOTE: Methods */
+
+    public void sample(FileChannel channel, int blocks, long blockSize) throws IOException {
+        // Count the words of blocks evenly spread over the file, each one starting and ending on a line
+
+        long[] starts = SplitTokenizer.splitAtLines(channel, 0, channel.size(), blocks);
+        SplitTokenizer tokenizer = new SplitTokenizer();
+        for (int block = 0; block + 1 < starts.length; block++) {
+            long end = SplitTokenizer.lastLineEnd(channel, starts[block], Math.min(starts[block] + blockSize, starts[block + 1]));
+            tokenizer.tokenize(channel, starts[block], end - starts[block], (bytes, offset, length, hash) -> {
+                this.counts.add(bytes, offset, length, hash, 1);
+                this.sampledWords++;
+            });
+        }
+    }
+
+    public long getSampledWords() {
+        return this.sampledWords;
+    }
+
+    public PartitionTable partitionTable(int reducers, double hotKeyLoad) {
+        // A word whose sampled share exceeds hotKeyLoad times the fair share of a reducer is hot: it is spread over enough reducers for each one to get at most that load
+
+        PartitionTable table = new PartitionTable();
+        double maxLoad = hotKeyLoad * this.sampledWords / reducers;
+        if (reducers < 2 || maxLoad <= 0) {
+            return table;
+        }
+        this.counts.forEach((bytes, offset, length, count) -> {
+            if (count > maxLoad) {
+                table.put(new String(bytes, offset, length, StandardCharsets.UTF_8), (int) Math.min(reducers, Math.ceil(count / maxLoad)));
+            }
+        });
+        return table;
+    }
+
+    public double imbalance(PartitionTable table, int reducers) {
+        // Sampled load of the most loaded reducer over the mean load, with the words of the table spread as the SkewAwarePartitioner does
+
+        double[] loads = new double[reducers];
+        this.counts.forEach((bytes, offset, length, count) -> {
+            String word = new String(bytes, offset, length, StandardCharsets.UTF_8);
+            int reducer = HashPartitioner.reducer(word, reducers);
+            int spread = Math.min(table.getSpread(word), reducers);
+            for (int i = 0; i < spread; i++) {
+                loads[(reducer + i) % reducers] += (double) count / spread;
+            }
+        });
+        return imbalance(loads);
+    }
+
+    public static double imbalance(double[] loads) {
+        // Load of the most loaded reducer over the mean load, 1 when the loads are even
+
+        double max = 0;
+        double total = 0;
+        for (double load : loads) {
+            max = Math.max(max, load);
+            total += load;
+        }
+        return total > 0 ? max * loads.length / total : 1;
+    }
+}
@@ -0,0 +1,126 @@
+package project.src.Master;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import project.src.Slave.Signals.SignalCodec;
+import project.src.Slave.Signals.WordCount;
+
+public class ResultMerger {
+    /* NOTE: Attributes */
+
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024; // Buffer of the result stream of each slave
+
+    // Streams with a pending word count, the head of the queue holds the next result; each stream only has one decoded word count at a time
+    private final PriorityQueue<ResultStream> streams = new PriorityQueue<>((a, b) -> WordCount.RESULT_ORDER.compare(a.head, b.head));
+    private final ArrayList<ResultStream> slaveStreams = new ArrayList<>(); // in the order they were added, for their loads
+    private final HashMap<String, Integer> hotCounts = new HashMap<>(); // sums of the partial counts of the hot words, spread over several reducers
+
+    /* NOTE: Methods */
+
+    public void add(InputStream inputStream) throws IOException {
+        // Add the result stream of a slave: a batch of the partial counts of its hot words, then its other word counts in WordCount.RESULT_ORDER
+
+        ResultStream stream = new ResultStream(new BufferedInputStream(inputStream, STREAM_BUFFER_SIZE), null);
+        this.slaveStreams.add(stream);
+        if (stream.advance()) {
+            this.streams.add(stream);
+        } else {
+            stream.close();
+        }
+    }
+
+    public long merge(Consumer<WordCount> output) throws IOException {
+        // K-way merge of the streams, giving all the word counts to output in WordCount.RESULT_ORDER; the hot words are one more stream, of their summed partial counts, the other words are only counted by one slave. Returns the number of word counts
+
+        if (!this.hotCounts.isEmpty()) {
+            ArrayList<WordCount> hotWords = new ArrayList<>();
+            this.hotCounts.forEach((word, count) -> hotWords.add(new WordCount(word, count)));
+            hotWords.sort(WordCount.RESULT_ORDER);
+            this.hotCounts.clear();
+            ResultStream stream = new ResultStream(null, hotWords.iterator());
+            stream.advance();
+            this.streams.add(stream);
+        }
+
+        long merged = 0;
+        try {
+            while (!this.streams.isEmpty()) {
+                ResultStream stream = this.streams.poll();
+                output.accept(stream.head);
+                merged++;
+                if (stream.advance()) {
+                    this.streams.add(stream);
+                } else {
+                    stream.close();
+                }
+            }
+        } finally {
+            for (ResultStream stream : this.streams) {
+                stream.close();
+            }
+            this.streams.clear();
+        }
+        return merged;
+    }
+
+    public long[] getLoads() {
+        // Occurrences of words reduced by each slave, in the order of their streams
+
+        long[] loads = new long[this.slaveStreams.size()];
+        for (int i = 0; i < loads.length; i++) {
+            loads[i] = this.slaveStreams.get(i).occurrences;
+        }
+        return loads;
+    }
+
+    /* NOTE: Result stream of a slave */
+
+    private class ResultStream {
+        private final InputStream inputStream; // null for the stream of the hot words
+        private final Iterator<WordCount> hotWords;
+        private WordCount head; // next word count of the stream
+        private long occurrences = 0; // sum of the counts read, partial counts included
+
+        private ResultStream(InputStream inputStream, Iterator<WordCount> hotWords) {
+            this.inputStream = inputStream;
+            this.hotWords = hotWords;
+        }
+
+        private boolean advance() throws IOException {
+            // Read the next word count, summing the partial counts of the hot words on the way; returns false at the end of the stream
+            if (this.inputStream == null) {
+                this.head = this.hotWords.hasNext() ? this.hotWords.next() : null;
+                return this.head != null;
+            }
+            Object signal;
+            while ((signal = SignalCodec.readFrame(this.inputStream)) != null) {
+                if (signal instanceof WordCount) {
+                    this.head = (WordCount) signal;
+                    this.occurrences += this.head.getCount();
+                    return true;
+                } else if (signal instanceof WordCount[]) {
+                    for (WordCount partialCount : (WordCount[]) signal) {
+                        hotCounts.merge(partialCount.getWord(), partialCount.getCount(), Integer::sum);
+                        this.occurrences += partialCount.getCount();
+                    }
+                } else {
+                    System.out.println("Received signal is not a WordCount.");
+                }
+            }
+            return false;
+        }
+
+        private void close() throws IOException {
+            if (this.inputStream != null) {
+                this.inputStream.close();
+            }
+        }
+    }
+}
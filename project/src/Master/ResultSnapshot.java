@@ -0,0 +1,224 @@
+package project.src.Master;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import project.src.Slave.Signals.WordCount;
+
+public class ResultSnapshot {
+    /* NOTE: Attributes */
+
+    public static final int MAGIC = 0x57435332; // "WCS2", first bytes of a snapshot file
+    public static final int FINGERPRINT_SIZE = 64 * 1024; // Bytes hashed at the start of the input and right before the offset, to find out that it was not only appended to
+    private static final int END_OF_COUNTS = -1; // length written after the last word
+
+    private final Path path; // snapshot file, next to the results
+    private final Path temporaryPath; // next snapshot, written with the results and moved over the snapshot by save
+    private final Path inputPath; // input counted by the snapshot
+    private long offset = 0; // bytes of the input already counted, always at the end of a line
+    private boolean loaded = false; // whether the counts of the snapshot file are the ones of [0, offset)
+    private HashMap<String, Long> deltas = new HashMap<>(); // counts of the words of the newly counted part of the input, then with their counts in the snapshot added
+
+    // NOTE: Constructor
+    public ResultSnapshot(Path path, Path inputPath) {
+        this.path = path;
+        this.temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        this.inputPath = inputPath;
+    }
+
+    /* NOTE: Methods */
+
+    public boolean load() throws IOException {
+        // Read the offset of the previous run, its counts are only read by writeResults; returns false, with an empty snapshot from offset 0, if there is none, if it cannot be read, or if the input changed elsewhere than after the offset
+
+        this.loaded = false;
+        this.offset = 0;
+        if (!Files.exists(this.path)) {
+            return false;
+        }
+        long offset;
+        byte[] fingerprint;
+        String inputFilename;
+        try (DataInputStream inputStream = openSnapshot()) {
+            inputFilename = inputStream.readUTF();
+            offset = inputStream.readLong();
+            fingerprint = new byte[inputStream.readInt()];
+            inputStream.readFully(fingerprint);
+        } catch (IOException e) {
+            System.out.println("Snapshot " + this.path + " cannot be read (" + e.getMessage() + "), the input is counted again from the start.");
+            return false;
+        }
+        if (!inputFilename.equals(this.inputPath.toAbsolutePath().toString()) || !Arrays.equals(fingerprint, fingerprint(offset))) {
+            System.out.println("Input " + this.inputPath + " changed before the end of the snapshot, it is counted again from the start.");
+            return false;
+        }
+        this.offset = offset;
+        this.loaded = true;
+        return true;
+    }
+
+    private DataInputStream openSnapshot() throws IOException {
+        // The snapshot file, read up to its header
+
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.path)));
+        if (inputStream.readInt() != MAGIC) {
+            inputStream.close();
+            throw new IOException("not a word count snapshot");
+        }
+        return inputStream;
+    }
+
+    private byte[] fingerprint(long offset) throws IOException {
+        // SHA-256 of the first bytes of the input and of the last ones before offset; null if the input is shorter than offset
+
+        try (FileChannel channel = FileChannel.open(this.inputPath, StandardOpenOption.READ)) {
+            if (channel.size() < offset) {
+                return null;
+            }
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            digest.update(Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+            update(digest, channel, 0, Math.min(FINGERPRINT_SIZE, offset));
+            update(digest, channel, Math.max(0, offset - FINGERPRINT_SIZE), offset);
+            return digest.digest();
+        }
+    }
+
+    private static void update(MessageDigest digest, FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+            // read until the range is full
+        }
+        buffer.flip();
+        digest.update(buffer);
+    }
+
+    public void add(WordCount delta) {
+        // Add the count of a word in the newly counted part of the input; only the words of that part are kept in memory
+        this.deltas.merge(delta.getWord(), (long) delta.getCount(), Long::sum);
+    }
+
+    public long writeResults(BufferedWriter resultsWriter, long offset) throws IOException {
+        // Write all the counts in the order of WordCount.RESULT_ORDER, as a full run would, and the next snapshot, covering the input up to offset, aside; returns the number of words
+        // The snapshot is in the same order: a first pass adds their counts in the snapshot to the words of the deltas, and a second one merges the other words of the snapshot, which keep their place, with the sorted updated words
+
+        if (this.loaded) {
+            try (DataInputStream inputStream = openSnapshot()) {
+                skipHeader(inputStream);
+                String word;
+                while ((word = readWord(inputStream)) != null) {
+                    long count = inputStream.readLong();
+                    this.deltas.computeIfPresent(word, (updatedWord, delta) -> delta + count);
+                }
+            }
+        }
+        ArrayList<Map.Entry<String, Long>> updated = new ArrayList<>(this.deltas.entrySet());
+        updated.sort((a, b) -> !a.getValue().equals(b.getValue()) ? Long.compare(b.getValue(), a.getValue()) : WordCount.compareWords(a.getKey(), b.getKey()));
+
+        long words = 0;
+        int next = 0;
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.temporaryPath)))) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeUTF(this.inputPath.toAbsolutePath().toString());
+            outputStream.writeLong(offset);
+            byte[] fingerprint = fingerprint(offset);
+            outputStream.writeInt(fingerprint.length);
+            outputStream.write(fingerprint);
+
+            if (this.loaded) {
+                try (DataInputStream inputStream = openSnapshot()) {
+                    skipHeader(inputStream);
+                    String word;
+                    while ((word = readWord(inputStream)) != null) {
+                        long count = inputStream.readLong();
+                        if (this.deltas.containsKey(word)) {
+                            continue; // written with the updated words
+                        }
+                        while (next < updated.size() && isBefore(updated.get(next), word, count)) {
+                            write(updated.get(next).getKey(), updated.get(next++).getValue(), resultsWriter, outputStream);
+                            words++;
+                        }
+                        write(word, count, resultsWriter, outputStream);
+                        words++;
+                    }
+                }
+            }
+            while (next < updated.size()) {
+                write(updated.get(next).getKey(), updated.get(next++).getValue(), resultsWriter, outputStream);
+                words++;
+            }
+            outputStream.writeInt(END_OF_COUNTS);
+        }
+        return words;
+    }
+
+    private static boolean isBefore(Map.Entry<String, Long> updated, String word, long count) {
+        return updated.getValue() != count ? updated.getValue() > count : WordCount.compareWords(updated.getKey(), word) < 0;
+    }
+
+    private static void skipHeader(DataInputStream inputStream) throws IOException {
+        inputStream.readUTF();
+        inputStream.readLong();
+        inputStream.skipNBytes(inputStream.readInt());
+    }
+
+    private static String readWord(DataInputStream inputStream) throws IOException {
+        // Next word of the snapshot, null after the last one
+        int length = inputStream.readInt();
+        if (length == END_OF_COUNTS) {
+            return null;
+        }
+        byte[] word = new byte[length];
+        inputStream.readFully(word);
+        return new String(word, StandardCharsets.UTF_8);
+    }
+
+    private static void write(String word, long count, BufferedWriter resultsWriter, DataOutputStream outputStream) throws IOException {
+        resultsWriter.write(word + " : " + count);
+        resultsWriter.newLine();
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+        outputStream.writeLong(count);
+    }
+
+    public void save(long offset) throws IOException {
+        // Replace the snapshot by the one written with the results, which covers the input up to offset
+        Files.move(this.temporaryPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.offset = offset;
+    }
+
+    public void discard() throws IOException {
+        // Keep the snapshot as it is, the next run counts the same lines again
+        Files.deleteIfExists(this.temporaryPath);
+    }
+
+    public long getOffset() {
+        return this.offset;
+    }
+
+    public int getDeltaWords() {
+        return this.deltas.size();
+    }
+}
@@ -0,0 +1,123 @@
+package project.src.Master;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class RunReport {
+    /* NOTE: Attributes */
+
+    private final long startNanos = System.nanoTime(); // start of the run, for its total duration
+    private final LinkedHashMap<String, Long> phases = new LinkedHashMap<>(); // milliseconds of each step of the master, in the order they ended
+    private final TreeMap<String, Map<String, Long>> slavePhases = new TreeMap<>(); // milliseconds of each phase of every slave, as they reported them
+    private final LinkedHashMap<String, Object> figures = new LinkedHashMap<>(); // settings and outcome of the run: numbers, booleans, strings, lists, arrays of longs or nested maps
+
+    /* NOTE: Methods */
+
+    public void time(String phase, Runnable step) {
+        // Run the step and add its wall time to the phase
+
+        long start = System.nanoTime();
+        try {
+            step.run();
+        } finally {
+            addPhase(phase, (System.nanoTime() - start) / 1000000);
+        }
+    }
+
+    public synchronized void addPhase(String phase, long milliseconds) {
+        this.phases.merge(phase, milliseconds, Long::sum);
+    }
+
+    public synchronized void addSlavePhases(String slave, Map<String, Long> phases) {
+        this.slavePhases.put(slave, phases);
+    }
+
+    public synchronized void put(String figure, Object value) {
+        this.figures.put(figure, value);
+    }
+
+    public synchronized void write(Path path) throws IOException {
+        // Write the report as one JSON object: total time, master phases, slave phases, then the figures
+
+        LinkedHashMap<String, Object> report = new LinkedHashMap<>();
+        report.put("totalMs", (System.nanoTime() - this.startNanos) / 1000000);
+        report.put("phasesMs", this.phases);
+        report.put("slavePhasesMs", this.slavePhases);
+        report.putAll(this.figures);
+
+        StringBuilder json = new StringBuilder();
+        writeValue(json, report, "");
+        json.append('\n');
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static void writeValue(StringBuilder json, Object value, String indent) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Map) {
+            Iterator<? extends Map.Entry<?, ?>> entries = ((Map<?, ?>) value).entrySet().iterator();
+            if (!entries.hasNext()) {
+                json.append("{}");
+                return;
+            }
+            String innerIndent = indent + "  ";
+            json.append("{\n");
+            while (entries.hasNext()) {
+                Map.Entry<?, ?> entry = entries.next();
+                json.append(innerIndent);
+                writeString(json, String.valueOf(entry.getKey()));
+                json.append(": ");
+                writeValue(json, entry.getValue(), innerIndent);
+                json.append(entries.hasNext() ? ",\n" : "\n");
+            }
+            json.append(indent).append('}');
+        } else if (value instanceof long[]) {
+            long[] values = (long[]) value;
+            json.append('[');
+            for (int i = 0; i < values.length; i++) {
+                json.append(i > 0 ? ", " : "").append(values[i]);
+            }
+            json.append(']');
+        } else if (value instanceof Iterable) {
+            json.append('[');
+            String separator = "";
+            for (Object element : (Iterable<?>) value) {
+                json.append(separator);
+                writeValue(json, element, indent);
+                separator = ", ";
+            }
+            json.append(']');
+        } else if (value instanceof Double) {
+            double number = (Double) value;
+            json.append(Double.isFinite(number) ? String.valueOf(number) : "null"); // JSON has no NaN nor infinity
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else {
+            writeString(json, value.toString());
+        }
+    }
+
+    private static void writeString(StringBuilder json, String string) {
+        json.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,96 @@
+package project.src.Master;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScheduledJob {
+    /* NOTE: Attributes */
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    private final int id; // job id given to the slave daemons, also numbers the ports of its master
+    private final String inputDataFilename; // text over which the job counts the words
+    private final String outputResultsFilename; // text in which the job writes its results
+    private final int parallelism; // number of slave slots asked for, the job gets fewer if its fair share is smaller
+    private final int priority; // weight of the job in the fair sharing of the slots, the higher priorities are also started first
+    private final long timeout; // time in milliseconds the job may run on its slots, after which it fails and gives them back
+    private final long submitTime = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile long startTime; // time at which it got its slots
+    private volatile long endTime; // time at which its results were written, or it failed
+    private volatile List<String> slaves = new ArrayList<>(); // slaves whose slots it runs on
+
+    // NOTE: Constructor
+    public ScheduledJob(int id, String inputDataFilename, String outputResultsFilename, int parallelism, int priority, long timeout) {
+        this.id = id;
+        this.inputDataFilename = inputDataFilename;
+        this.outputResultsFilename = outputResultsFilename;
+        this.parallelism = parallelism;
+        this.priority = priority;
+        this.timeout = timeout;
+    }
+
+    /* NOTE: Methods */
+
+    public void start(List<String> slaves) {
+        this.slaves = slaves;
+        this.startTime = System.currentTimeMillis();
+        this.state = State.RUNNING;
+    }
+
+    public void end(boolean succeeded) {
+        this.endTime = System.currentTimeMillis();
+        this.state = succeeded ? State.DONE : State.FAILED;
+    }
+
+    public long getWaitTime() {
+        // Time in milliseconds spent in the queue, up to now if it is still there
+        return (this.state == State.QUEUED ? System.currentTimeMillis() : this.startTime) - this.submitTime;
+    }
+
+    public long getRunTime() {
+        // Time in milliseconds spent on its slots, up to now if it still runs
+        if (this.state == State.QUEUED) {
+            return 0;
+        }
+        return (this.state == State.RUNNING ? System.currentTimeMillis() : this.endTime) - this.startTime;
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public String getInputDataFilename() {
+        return this.inputDataFilename;
+    }
+
+    public String getOutputResultsFilename() {
+        return this.outputResultsFilename;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public int getPriority() {
+        return this.priority;
+    }
+
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    public State getState() {
+        return this.state;
+    }
+
+    public List<String> getSlaves() {
+        return this.slaves;
+    }
+
+    @Override
+    public String toString() {
+        return "job " + this.id + " (" + this.inputDataFilename + ", parallelism " + this.parallelism + ", priority " + this.priority + ")";
+    }
+}
@@ -0,0 +1,111 @@
+package project.src.Master;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+public class SlaveArtifact {
+    /* NOTE: Attributes */
+
+    public static final String MAIN_CLASS = "project.src.Slave.Slave";
+    public static final String DAEMON_MAIN_CLASS = "project.src.Slave.SlaveDaemon";
+    private static final long ENTRY_TIME = 0; // time of every entry of the jar, so that the same classes always give the same bytes, and the same hash
+
+    private final Path sourceDirectory; // Slave/ sources, with the Signals/ ones
+    private final Path jarPath; // jar built by the master
+    private String hash; // SHA-256 of the jar, in hexadecimal, names its folder in the cache of the slaves
+
+    // NOTE: Constructor
+    public SlaveArtifact(Path sourceDirectory, Path jarPath) {
+        this.sourceDirectory = sourceDirectory;
+        this.jarPath = jarPath;
+    }
+
+    /* NOTE: Methods */
+
+    public String build() throws IOException {
+        // Compile the sources of the slave once, with the compiler of the master, and pack the classes in a jar whose hash only depends on its content; returns the hash
+
+        List<String> sources;
+        try (Stream<Path> paths = Files.walk(this.sourceDirectory)) {
+            sources = paths.filter(path -> path.toString().endsWith(".java")).map(Path::toString).sorted().collect(Collectors.toList());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("No Java compiler available, the master must run on a JDK.");
+        }
+        Path classesDirectory = Files.createTempDirectory("slave-classes");
+        try {
+            ArrayList<String> arguments = new ArrayList<>(List.of("-d", classesDirectory.toString()));
+            arguments.addAll(sources);
+            if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+                throw new IOException("Compilation of the slave sources in " + this.sourceDirectory + " failed.");
+            }
+            this.hash = writeJar(classesDirectory);
+        } finally {
+            try (Stream<Path> paths = Files.walk(classesDirectory)) {
+                for (Path path : paths.sorted((a, b) -> b.compareTo(a)).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+        return this.hash;
+    }
+
+    private String writeJar(Path classesDirectory) throws IOException {
+        // Entries in a fixed order and with a fixed time; the hash is computed while the jar is written
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        List<Path> classes;
+        try (Stream<Path> paths = Files.walk(classesDirectory)) {
+            classes = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        Files.createDirectories(this.jarPath.toAbsolutePath().getParent());
+        try (OutputStream fileStream = Files.newOutputStream(this.jarPath);
+             JarOutputStream jarStream = new JarOutputStream(new DigestOutputStream(fileStream, digest))) {
+            for (Path path : classes) {
+                JarEntry entry = new JarEntry(classesDirectory.relativize(path).toString().replace('\\', '/'));
+                entry.setTime(ENTRY_TIME);
+                jarStream.putNextEntry(entry);
+                Files.copy(path, jarStream);
+                jarStream.closeEntry();
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(String.format("%02x", b));
+        }
+        return hash.toString();
+    }
+
+    public Path getJarPath() {
+        return this.jarPath;
+    }
+
+    public String getHash() {
+        // The cached jars are named by the hash, so a jar that was not built cannot be deployed
+        if (this.hash == null) {
+            throw new IllegalStateException("Slave jar " + this.jarPath + " not built, it cannot be deployed.");
+        }
+        return this.hash;
+    }
+}
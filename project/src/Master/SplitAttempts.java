@@ -0,0 +1,199 @@
+package project.src.Master;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SplitAttempts {
+    /* NOTE: Attributes */
+
+    private final long[] lengths; // size of each split
+    private final int[] committed; // attempt of each split that ended first, -1 while none did
+    private int committedSplits = 0;
+    private int failedAttempts = 0; // attempts that ended without mapping all their split
+    private final ArrayList<Attempt> attempts = new ArrayList<>(); // indexed by attempt number
+
+    // NOTE: Constructor
+    public SplitAttempts(long[] splitBoundaries) {
+        this.lengths = new long[splitBoundaries.length - 1];
+        for (int split = 0; split < this.lengths.length; split++) {
+            this.lengths[split] = splitBoundaries[split + 1] - splitBoundaries[split];
+        }
+        this.committed = new int[this.lengths.length];
+        Arrays.fill(this.committed, -1);
+    }
+
+    /* NOTE: Methods */
+
+    public synchronized int launch(int split, String slave) {
+        // Record a new attempt of the split on the slave; returns its number, the attempts being numbered in launch order
+        this.attempts.add(new Attempt(split, slave, System.currentTimeMillis()));
+        return this.attempts.size() - 1;
+    }
+
+    public synchronized void progress(int attempt, long mappedBytes) {
+        Attempt progressing = this.attempts.get(attempt);
+        progressing.mappedBytes = Math.max(progressing.mappedBytes, mappedBytes);
+    }
+
+    public synchronized boolean end(int attempt) {
+        // Record the end of the attempt; returns true if it is the first one of its split to end, which commits it, provided its last progress covers the whole split
+
+        Attempt ended = this.attempts.get(attempt);
+        if (ended.end < 0) {
+            ended.end = System.currentTimeMillis();
+        }
+        if (this.committed[ended.split] >= 0) {
+            return false;
+        }
+        if (ended.mappedBytes < this.lengths[ended.split]) {
+            this.failedAttempts++;
+            return false;
+        }
+        ended.mappedBytes = this.lengths[ended.split];
+        this.committed[ended.split] = attempt;
+        this.committedSplits++;
+        notifyAll();
+        return true;
+    }
+
+    public synchronized boolean fail(int attempt) {
+        // Record the end of an attempt that did not map all its split; returns true if no attempt of its split is committed, so another one has to be launched
+
+        Attempt failed = this.attempts.get(attempt);
+        if (failed.end < 0) {
+            failed.end = System.currentTimeMillis();
+        }
+        if (this.committed[failed.split] >= 0) {
+            return false; // cancelled once another attempt was committed
+        }
+        this.failedAttempts++;
+        return true;
+    }
+
+    public synchronized int getFailedAttempts() {
+        return this.failedAttempts;
+    }
+
+    public synchronized int getSplit(int attempt) {
+        return this.attempts.get(attempt).split;
+    }
+
+    public synchronized String getSlave(int attempt) {
+        return this.attempts.get(attempt).slave;
+    }
+
+    public synchronized int getCommittedAttempt(int split) {
+        return this.committed[split];
+    }
+
+    public synchronized boolean allCommitted() {
+        return this.committedSplits == this.lengths.length;
+    }
+
+    public synchronized void awaitCommits(long timeout) throws InterruptedException {
+        // Wait until all splits are committed, or at most timeout milliseconds
+        if (!allCommitted()) {
+            wait(timeout);
+        }
+    }
+
+    public synchronized int getSpeculativeAttempts() {
+        return this.attempts.size() - this.lengths.length;
+    }
+
+    public synchronized int getSpeculativeWins() {
+        // Splits committed from an attempt launched after the first ones
+        int wins = 0;
+        for (int attempt : this.committed) {
+            if (attempt >= this.lengths.length) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+
+    public synchronized int findStraggler(double slowness, long minTime) {
+        // Split whose only attempt maps at less than slowness times the median rate of all attempts, after minTime milliseconds; the one with the longest expected remaining time, -1 if none
+
+        long now = System.currentTimeMillis();
+        ArrayList<Double> rates = new ArrayList<>();
+        for (Attempt attempt : this.attempts) {
+            long elapsed = (attempt.end >= 0 ? attempt.end : now) - attempt.start;
+            if (elapsed >= minTime || (attempt.end >= 0 && elapsed > 0)) {
+                rates.add(attempt.mappedBytes / (double) elapsed);
+            }
+        }
+        if (rates.isEmpty()) {
+            return -1;
+        }
+        rates.sort(null);
+        double median = rates.get(rates.size() / 2);
+        if (median <= 0) {
+            return -1;
+        }
+
+        int[] attemptsOfSplit = new int[this.lengths.length];
+        for (Attempt attempt : this.attempts) {
+            attemptsOfSplit[attempt.split]++;
+        }
+        int straggler = -1;
+        double longestRemaining = 0;
+        for (Attempt attempt : this.attempts) {
+            long elapsed = now - attempt.start;
+            if (attempt.end >= 0 || this.committed[attempt.split] >= 0 || attemptsOfSplit[attempt.split] > 1 || elapsed < minTime) {
+                continue;
+            }
+            double rate = attempt.mappedBytes / (double) elapsed;
+            if (rate < slowness * median) {
+                double remaining = (this.lengths[attempt.split] - attempt.mappedBytes) / Math.max(rate, 1e-9);
+                if (remaining > longestRemaining) {
+                    longestRemaining = remaining;
+                    straggler = attempt.split;
+                }
+            }
+        }
+        return straggler;
+    }
+
+    public synchronized String idleSlave(List<String> slaves) {
+        // Slave running no attempt, the one that mapped the fastest so far (the ones that mapped nothing first); null if all are busy
+
+        String idle = null;
+        double bestRate = -1;
+        for (String slave : slaves) {
+            double rate = Double.MAX_VALUE;
+            boolean busy = false;
+            for (Attempt attempt : this.attempts) {
+                if (attempt.slave.equals(slave)) {
+                    if (attempt.end < 0) {
+                        busy = true;
+                        break;
+                    }
+                    rate = Math.min(rate, attempt.mappedBytes / (double) Math.max(1, attempt.end - attempt.start));
+                }
+            }
+            if (!busy && rate > bestRate) {
+                bestRate = rate;
+                idle = slave;
+            }
+        }
+        return idle;
+    }
+
+    /* NOTE: Attempts */
+
+    private static class Attempt {
+        private final int split;
+        private final String slave;
+        private final long start; // launch time, in milliseconds
+        private long end = -1; // time at which the slave reported its end, -1 while it runs
+        private long mappedBytes = 0; // last progress reported by the slave
+
+        private Attempt(int split, String slave, long start) {
+            this.split = split;
+            this.slave = slave;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package project.src.Slave;
+
+import java.util.Arrays;
+
+public class ByteSliceCountTable {
+    /* NOTE: Attributes */
+
+    private byte[] arena = new byte[64 * 1024]; // bytes of all the keys, one after the other
+    private int arenaSize = 0;
+
+    private int[] offsets; // offset of the key of each slot in the arena, -1 for a free slot; open addressing with linear probing
+    private int[] lengths;
+    private int[] hashes;
+    private long[] counts;
+    private int size = 0;
+
+    // NOTE: Constructor
+    public ByteSliceCountTable() {
+        this(1024);
+    }
+
+    public ByteSliceCountTable(int expectedSize) {
+        int capacity = 16;
+        while (capacity < 2 * expectedSize) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+    }
+
+    /* NOTE: Methods */
+
+    public long add(byte[] bytes, int offset, int length, int hash, long count) {
+        // Add count to the count of the key bytes[offset, offset + length), whose hash is given by the tokenizer; the bytes are copied the first time the key is seen
+
+        int mask = this.offsets.length - 1;
+        int slot = WordInterner.mix(hash) & mask;
+        int keyOffset;
+        while ((keyOffset = this.offsets[slot]) >= 0) {
+            if (this.hashes[slot] == hash && this.lengths[slot] == length && Arrays.equals(this.arena, keyOffset, keyOffset + length, bytes, offset, offset + length)) {
+                return this.counts[slot] += count;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (2 * (this.size + 1) > this.offsets.length) {
+            grow();
+            mask = this.offsets.length - 1;
+            slot = WordInterner.mix(hash) & mask;
+            while (this.offsets[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        if (this.arenaSize + length > this.arena.length) {
+            this.arena = Arrays.copyOf(this.arena, Math.max(2 * this.arena.length, this.arenaSize + length));
+        }
+        System.arraycopy(bytes, offset, this.arena, this.arenaSize, length);
+        this.offsets[slot] = this.arenaSize;
+        this.lengths[slot] = length;
+        this.hashes[slot] = hash;
+        this.counts[slot] = count;
+        this.arenaSize += length;
+        this.size++;
+        return count;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public long memoryBytes() {
+        // Estimated heap needed by the keys and the slots of the current entries (two slots per entry, at most half of the slots being used)
+
+        return this.arenaSize + 2L * 20 * this.size;
+    }
+
+    public void forEach(SliceCountConsumer consumer) {
+        // Give every key with its count to the consumer, in no particular order
+
+        for (int slot = 0; slot < this.offsets.length; slot++) {
+            if (this.offsets[slot] >= 0) {
+                consumer.accept(this.arena, this.offsets[slot], this.lengths[slot], this.counts[slot]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(this.offsets, -1);
+        this.arenaSize = 0;
+        this.size = 0;
+    }
+
+    private void allocate(int capacity) {
+        this.offsets = new int[capacity];
+        Arrays.fill(this.offsets, -1);
+        this.lengths = new int[capacity];
+        this.hashes = new int[capacity];
+        this.counts = new long[capacity];
+        this.size = 0;
+    }
+
+    private void grow() {
+        int[] oldOffsets = this.offsets;
+        int[] oldLengths = this.lengths;
+        int[] oldHashes = this.hashes;
+        long[] oldCounts = this.counts;
+        int oldSize = this.size;
+
+        allocate(2 * oldOffsets.length);
+        int mask = this.offsets.length - 1;
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] >= 0) {
+                int slot = WordInterner.mix(oldHashes[i]) & mask;
+                while (this.offsets[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.offsets[slot] = oldOffsets[i];
+                this.lengths[slot] = oldLengths[i];
+                this.hashes[slot] = oldHashes[i];
+                this.counts[slot] = oldCounts[i];
+            }
+        }
+        this.size = oldSize;
+    }
+
+    /* NOTE: Consumer of counts */
+
+    public interface SliceCountConsumer {
+        // The key is bytes[offset, offset + length), only valid during the call
+        void accept(byte[] bytes, int offset, int length, long count);
+    }
+}
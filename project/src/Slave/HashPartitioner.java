@@ -0,0 +1,24 @@
+package project.src.Slave;
+
+public class HashPartitioner implements Partitioner {
+    /* NOTE: Attributes */
+
+    private final int reducers;
+
+    // NOTE: Constructor
+    public HashPartitioner(int reducers) {
+        this.reducers = reducers;
+    }
+
+    /* NOTE: Methods */
+
+    @Override
+    public int reducer(String word) {
+        return reducer(word, this.reducers);
+    }
+
+    public static int reducer(String word, int reducers) {
+        // Reducer of a word that is not spread, the same on every slave
+        return (word.hashCode() & 0x7FFFFFFF) % reducers;
+    }
+}
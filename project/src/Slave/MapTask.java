@@ -0,0 +1,111 @@
+package project.src.Slave;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import project.src.Slave.Signals.WordCount;
+
+public class MapTask extends RecursiveAction {
+    /* NOTE: Attributes */
+
+    private static final long serialVersionUID = 1L; // RecursiveAction is serializable, though the tasks never leave their pool
+    public static final long PROGRESS_STEP = 1024 * 1024; // Bytes tokenized between two updates of the progress of the attempt
+
+    private final Path path; // split file
+    private final long start; // first byte of the chunk, at the start of a line
+    private final long length; // number of bytes of the chunk, up to the end of a line
+    private final int combinerCapacity; // max number of distinct words in the local table, 0 if no combiner
+    private final SplitAttempt attempt; // attempt of the split to which the chunk belongs, for its progress and its cancellation
+    private final SlaveMetrics metrics; // counters of the slave, sent with its heartbeats
+    private final Consumer<WordCount> output; // where the word counts go, shared by all the tasks
+
+    private long tokenizedBytes = 0; // approximate, tokens and one delimiter each
+    private long reportedBytes = 0; // part of tokenizedBytes already added to the progress of the attempt
+    private long tokens = 0; // tokens found since the last progress report
+
+    private final ByteSliceCountTable combinerTable = new ByteSliceCountTable(); // local counts of this task, not yet sent, keyed by the bytes of the words
+
+    // NOTE: Constructor
+    public MapTask(Path path, long start, long length, int combinerCapacity, SplitAttempt attempt, SlaveMetrics metrics, Consumer<WordCount> output) {
+        this.path = path;
+        this.start = start;
+        this.length = length;
+        this.combinerCapacity = combinerCapacity;
+        this.attempt = attempt;
+        this.metrics = metrics;
+        this.output = output;
+    }
+
+    /* NOTE: Methods */
+
+    @Override
+    protected void compute() {
+        // Tokenize the chunk with a tokenizer of its own, counting the words on their bytes (or interning them if there is no combiner), then flush what is left in the local table; stops early if the attempt is cancelled
+
+        SplitTokenizer tokenizer = new SplitTokenizer();
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            if (this.combinerCapacity > 0) {
+                tokenizer.tokenize(channel, this.start, this.length, (bytes, offset, length, hash) -> {
+                    combineWord(bytes, offset, length, hash);
+                    progress(length);
+                });
+            } else {
+                WordInterner interner = new WordInterner();
+                tokenizer.tokenize(channel, this.start, this.length, (bytes, offset, length, hash) -> {
+                    mapWord(interner.intern(bytes, offset, length, hash));
+                    progress(length);
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (CancellationException e) {
+            return;
+        }
+        flushCombiner();
+        this.attempt.addMappedBytes(this.length - this.reportedBytes);
+        this.metrics.addMapped(this.length - this.reportedBytes, this.tokens);
+    }
+
+    private void progress(int tokenLength) {
+        // Report the progress of the chunk every PROGRESS_STEP bytes, and check on the way whether the attempt is still useful
+
+        this.tokenizedBytes += tokenLength + 1;
+        this.tokens++;
+        if (this.tokenizedBytes - this.reportedBytes >= PROGRESS_STEP) {
+            if (this.attempt.isCancelled()) {
+                throw new CancellationException();
+            }
+            long step = Math.min(this.tokenizedBytes, this.length) - this.reportedBytes;
+            this.attempt.addMappedBytes(step);
+            this.metrics.addMapped(step, this.tokens);
+            this.reportedBytes += step;
+            this.tokens = 0;
+        }
+    }
+
+    public void mapWord(String word) {
+        // Output the word directly, when there is no combiner
+
+        this.output.accept(new WordCount(word));
+    }
+
+    public void combineWord(byte[] bytes, int offset, int length, int hash) {
+        // Count the word in the local table, in place; a String is only created for it when the table is flushed
+
+        if (this.combinerTable.add(bytes, offset, length, hash, 1) == 1 && this.combinerTable.size() >= this.combinerCapacity) {
+            flushCombiner();
+        }
+    }
+
+    public void flushCombiner() {
+        this.combinerTable.forEach((bytes, offset, length, count) -> this.output.accept(new WordCount(new String(bytes, offset, length, StandardCharsets.UTF_8), (int) count)));
+        this.combinerTable.clear();
+    }
+}
@@ -0,0 +1,191 @@
+package project.src.Slave;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class OffHeapCountTable {
+    /* NOTE: Attributes */
+
+    public static final int PAGE_SIZE = 16 * 1024 * 1024; // Size of the direct buffers in which the keys are stored
+    public static final int MAX_SLOTS = Integer.MAX_VALUE / 24; // The index is one direct buffer, so at most MAX_SLOTS / 2 words
+
+    // Layout of a slot of the index: [key address + 1 (0 for a free slot)][hash][length][count]
+    private static final int SLOT_SIZE = 24;
+    private static final int ADDRESS = 0;
+    private static final int HASH = 8;
+    private static final int LENGTH = 12;
+    private static final int COUNT = 16;
+
+    private final ArrayList<ByteBuffer> pages = new ArrayList<>(); // UTF-8 bytes of the keys, one after the other; a key never spans two pages, its address is (page << 32) | offset
+    private int currentPage = 0; // page in which the next keys are stored, the next ones are empty pages kept for reuse
+    private ByteBuffer index; // open addressing with linear probing
+    private int slots;
+    private final int initialSlots;
+    private int size = 0;
+
+    private byte[] scratch = new byte[256]; // the only heap memory growing with the words, up to the longest one
+
+    // NOTE: Constructor
+    public OffHeapCountTable() {
+        this(1024);
+    }
+
+    public OffHeapCountTable(int expectedSize) {
+        int slots = 16;
+        while (slots < 2 * expectedSize) {
+            slots *= 2;
+        }
+        this.initialSlots = slots;
+        this.index = allocateIndex(slots);
+        this.slots = slots;
+    }
+
+    /* NOTE: Methods */
+
+    public long add(byte[] bytes, int offset, int length, long count) {
+        return add(bytes, offset, length, SplitTokenizer.hash(bytes, offset, length), count);
+    }
+
+    public long add(byte[] bytes, int offset, int length, int hash, long count) {
+        // Add count to the count of the key bytes[offset, offset + length), compared on its bytes; the bytes are copied off-heap the first time the key is seen
+
+        int mask = this.slots - 1;
+        int slot = WordInterner.mix(hash) & mask;
+        long address;
+        while ((address = this.index.getLong(slot * SLOT_SIZE + ADDRESS)) != 0) {
+            int position = slot * SLOT_SIZE;
+            if (this.index.getInt(position + HASH) == hash && this.index.getInt(position + LENGTH) == length && keyEquals(address - 1, length, bytes, offset)) {
+                long newCount = this.index.getLong(position + COUNT) + count;
+                this.index.putLong(position + COUNT, newCount);
+                return newCount;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (2 * (this.size + 1) > this.slots) {
+            grow();
+            mask = this.slots - 1;
+            slot = WordInterner.mix(hash) & mask;
+            while (this.index.getLong(slot * SLOT_SIZE + ADDRESS) != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        int position = slot * SLOT_SIZE;
+        this.index.putLong(position + ADDRESS, storeKey(bytes, offset, length) + 1);
+        this.index.putInt(position + HASH, hash);
+        this.index.putInt(position + LENGTH, length);
+        this.index.putLong(position + COUNT, count);
+        this.size++;
+        return count;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public long memoryBytes() {
+        // Memory used outside of the heap by the index and the stored keys
+
+        long bytes = this.index.capacity();
+        for (ByteBuffer page : this.pages) {
+            bytes += page.position();
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        // Forget all the words; the pages are kept to store the next keys, the index goes back to its initial size
+
+        for (ByteBuffer page : this.pages) {
+            page.clear();
+        }
+        this.currentPage = 0;
+        this.index = allocateIndex(this.initialSlots);
+        this.slots = this.initialSlots;
+        this.size = 0;
+    }
+
+    public long offHeapBytes() {
+        // Memory used outside of the heap by the index and the pages of keys
+
+        long bytes = this.index.capacity();
+        for (ByteBuffer page : this.pages) {
+            bytes += page.capacity();
+        }
+        return bytes;
+    }
+
+    public void forEach(ByteSliceCountTable.SliceCountConsumer consumer) {
+        // Give every key with its count to the consumer, in no particular order; the key is copied in an array reused for the next one
+
+        for (int slot = 0; slot < this.slots; slot++) {
+            int position = slot * SLOT_SIZE;
+            long address = this.index.getLong(position + ADDRESS);
+            if (address != 0) {
+                int length = this.index.getInt(position + LENGTH);
+                byte[] key = readKey(address - 1, length);
+                consumer.accept(key, 0, length, this.index.getLong(position + COUNT));
+            }
+        }
+    }
+
+    private long storeKey(byte[] bytes, int offset, int length) {
+        while (this.currentPage < this.pages.size() && this.pages.get(this.currentPage).remaining() < length) {
+            this.currentPage++;
+        }
+        if (this.currentPage == this.pages.size()) {
+            this.pages.add(ByteBuffer.allocateDirect(Math.max(PAGE_SIZE, length)));
+        }
+        ByteBuffer page = this.pages.get(this.currentPage);
+        long address = ((long) this.currentPage << 32) | page.position();
+        page.put(bytes, offset, length);
+        return address;
+    }
+
+    private byte[] readKey(long address, int length) {
+        if (length > this.scratch.length) {
+            this.scratch = new byte[Math.max(length, 2 * this.scratch.length)];
+        }
+        this.pages.get((int) (address >>> 32)).get((int) address, this.scratch, 0, length);
+        return this.scratch;
+    }
+
+    private boolean keyEquals(long address, int length, byte[] bytes, int offset) {
+        byte[] key = readKey(address, length);
+        return Arrays.equals(key, 0, length, bytes, offset, offset + length);
+    }
+
+    private static ByteBuffer allocateIndex(int slots) {
+        if (slots > MAX_SLOTS) {
+            throw new IllegalStateException("Off-heap count table full, it can hold at most " + MAX_SLOTS / 2 + " words");
+        }
+        return ByteBuffer.allocateDirect(slots * SLOT_SIZE).order(ByteOrder.nativeOrder()); // zeroed, so all slots are free
+    }
+
+    private void grow() {
+        ByteBuffer oldIndex = this.index;
+        int oldSlots = this.slots;
+
+        this.index = allocateIndex(2 * oldSlots);
+        this.slots = 2 * oldSlots;
+        int mask = this.slots - 1;
+        for (int i = 0; i < oldSlots; i++) {
+            int oldPosition = i * SLOT_SIZE;
+            long address = oldIndex.getLong(oldPosition + ADDRESS);
+            if (address != 0) {
+                int hash = oldIndex.getInt(oldPosition + HASH);
+                int slot = WordInterner.mix(hash) & mask;
+                while (this.index.getLong(slot * SLOT_SIZE + ADDRESS) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                int position = slot * SLOT_SIZE;
+                this.index.putLong(position + ADDRESS, address);
+                this.index.putInt(position + HASH, hash);
+                this.index.putInt(position + LENGTH, oldIndex.getInt(oldPosition + LENGTH));
+                this.index.putLong(position + COUNT, oldIndex.getLong(oldPosition + COUNT));
+            }
+        }
+    }
+}
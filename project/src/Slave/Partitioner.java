@@ -0,0 +1,5 @@
+package project.src.Slave;
+
+public interface Partitioner {
+    int reducer(String word); // Index, in the list of slaves, of the reducer to which the next count of the word is sent
+}
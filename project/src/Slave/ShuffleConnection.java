@@ -0,0 +1,179 @@
+package project.src.Slave;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import project.src.Slave.Signals.SignalCodec;
+import project.src.Slave.Signals.WordCount;
+
+public class ShuffleConnection {
+    /* NOTE: Attributes */
+
+    private final Socket socket; // long-lived connection to the peer slave
+    private final OutputStream outputStream; // stream on which the batches are written
+    private final ByteArrayOutputStream batchBytes = new ByteArrayOutputStream(); // encoded word counts of the batch being filled
+
+    private final int batchSize; // number of word counts after which the batch is flushed
+    private final long lingerMs; // time after which a non-empty batch is flushed, even if not full
+
+    private int split = -1; // split and attempt of the words being sent, written at the start of every batch
+    private int attempt = -1;
+    private int batchWords = 0; // number of word counts in the batch being filled
+    private long batchStart = 0; // time at which the first word count of the batch was added
+    private long recordsSent = 0; // word counts given to the connection since it was opened
+
+    // NOTE: Constructor
+    public ShuffleConnection(String sender, int job, InetAddress address, int port, int batchSize, long lingerMs) throws IOException {
+        this.socket = new Socket(address, port);
+        this.socket.setTcpNoDelay(true);
+        this.outputStream = new BufferedOutputStream(this.socket.getOutputStream());
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+
+        // A daemon gives the connection to the slave of the job
+        if (job >= 0) {
+            SignalCodec.writeJobHeader(this.outputStream, job);
+        }
+
+        // The peer counts the words it receives by sender
+        ByteArrayOutputStream hello = new ByteArrayOutputStream();
+        hello.write(SignalCodec.SHUFFLE_HELLO);
+        SignalCodec.writeString(hello, sender);
+        SignalCodec.writeVarInt(this.outputStream, hello.size());
+        hello.writeTo(this.outputStream);
+    }
+
+    /* NOTE: Methods */
+
+    public synchronized void send(WordCount wordCount) throws IOException {
+        // Add the word count to the current batch, and flush it if it is full
+
+        if (this.batchWords == 0) {
+            this.batchStart = System.currentTimeMillis();
+        }
+        SignalCodec.writeWordCount(this.batchBytes, wordCount);
+        this.batchWords++;
+        this.recordsSent++;
+        if (this.batchWords >= this.batchSize) {
+            flushBatch();
+        }
+    }
+
+    public synchronized long getRecordsSent() {
+        return this.recordsSent;
+    }
+
+    public synchronized void startAttempt(int split, int attempt) throws IOException {
+        // The next words belong to this attempt of this split
+
+        flushBatch();
+        this.split = split;
+        this.attempt = attempt;
+    }
+
+    public synchronized void endAttempt() throws IOException {
+        // Flush the words of the attempt and write its end, so that the peer knows it has all of them
+
+        flushBatch();
+        SignalCodec.writeVarInt(this.outputStream, 1 + SignalCodec.varIntSize(this.split) + SignalCodec.varIntSize(this.attempt));
+        this.outputStream.write(SignalCodec.ATTEMPT_END);
+        SignalCodec.writeVarInt(this.outputStream, this.split);
+        SignalCodec.writeVarInt(this.outputStream, this.attempt);
+        this.outputStream.flush();
+    }
+
+    public synchronized void abortAttempt() {
+        // Drop the words of the attempt still in the batch, without writing its end: the peer never sees the attempt as complete
+
+        this.batchBytes.reset();
+        this.batchWords = 0;
+    }
+
+    public synchronized void flushIfLingering() throws IOException {
+        // Flush the current batch if it has been waiting for more than lingerMs
+
+        if (this.batchWords > 0 && System.currentTimeMillis() - this.batchStart >= this.lingerMs) {
+            flushBatch();
+        }
+    }
+
+    public synchronized void flushBatch() throws IOException {
+        // Write the batch as an ATTEMPT_BATCH frame on the connection
+
+        if (this.batchWords == 0) {
+            return;
+        }
+        SignalCodec.writeVarInt(this.outputStream, 1 + SignalCodec.varIntSize(this.split) + SignalCodec.varIntSize(this.attempt) + SignalCodec.varIntSize(this.batchWords) + this.batchBytes.size());
+        this.outputStream.write(SignalCodec.ATTEMPT_BATCH);
+        SignalCodec.writeVarInt(this.outputStream, this.split);
+        SignalCodec.writeVarInt(this.outputStream, this.attempt);
+        SignalCodec.writeVarInt(this.outputStream, this.batchWords);
+        this.batchBytes.writeTo(this.outputStream);
+        this.outputStream.flush();
+
+        this.batchBytes.reset();
+        this.batchWords = 0;
+    }
+
+    public synchronized void close() throws IOException {
+        // Flush the pending words and close the connection; the peer sees it as the end of the stream
+
+        flushBatch();
+        this.outputStream.close();
+        this.socket.close();
+    }
+
+    public static int[] readAttempt(byte[] body) {
+        // Split and attempt of an ATTEMPT_BATCH or ATTEMPT_END frame body
+
+        ByteBuffer buffer = ByteBuffer.wrap(body, 1, body.length - 1);
+        int split = SignalCodec.readVarInt(buffer);
+        return new int[] {split, SignalCodec.readVarInt(buffer)};
+    }
+
+    public static String readSender(byte[] body) throws IOException {
+        // Sender of a SHUFFLE_HELLO frame body
+
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        if (buffer.get() != SignalCodec.SHUFFLE_HELLO) {
+            throw new IOException("Shuffle stream does not start with its sender.");
+        }
+        return SignalCodec.readString(buffer);
+    }
+
+    public static int batchWords(byte[] body) {
+        // Number of word counts of an ATTEMPT_BATCH frame body, 0 for an ATTEMPT_END one
+
+        if (body[0] != SignalCodec.ATTEMPT_BATCH) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body, 1, body.length - 1);
+        SignalCodec.readVarInt(buffer); // split
+        SignalCodec.readVarInt(buffer); // attempt
+        return SignalCodec.readVarInt(buffer);
+    }
+
+    public static void decodeBatch(byte[] body, ByteSliceCountTable.SliceCountConsumer consumer) throws IOException {
+        // Give the word counts of a batch frame body to the consumer as slices of the body, so that no String is created for them
+
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        if (buffer.get() != SignalCodec.ATTEMPT_BATCH) {
+            throw new IOException("Received signal is not a batch of WordCount.");
+        }
+        SignalCodec.readVarInt(buffer); // split
+        SignalCodec.readVarInt(buffer); // attempt
+        int wordCounts = SignalCodec.readVarInt(buffer);
+        for (int i = 0; i < wordCounts; i++) {
+            int length = SignalCodec.readVarInt(buffer) - 1;
+            int offset = buffer.position();
+            buffer.position(offset + length);
+            consumer.accept(body, offset, length, SignalCodec.readVarInt(buffer));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package project.src.Slave.Signals;
+
+public class CommandSignal {
+
+    private final SlaveCommand command;
+    private final Object[] parameters; // of the types of the command, in its order
+
+    public CommandSignal(SlaveCommand command, Object... parameters){
+        command.checkParameters(parameters);
+        this.command = command;
+        this.parameters = parameters;
+    }
+
+    public SlaveCommand getCommand(){
+        return this.command;
+    }
+
+    public Object[] getParameters(){
+        return this.parameters;
+    }
+}
@@ -0,0 +1,20 @@
+package project.src.Slave.Signals;
+
+public class FailureSignal {
+
+    private final String sender; // name of the slave, as given by the master
+    private final String reason; // what the slave could not do, reported by the master when it aborts the job
+
+    public FailureSignal(String sender, String reason){
+        this.sender = sender;
+        this.reason = reason;
+    }
+
+    public String getSender(){
+        return this.sender;
+    }
+
+    public String getReason(){
+        return this.reason;
+    }
+}
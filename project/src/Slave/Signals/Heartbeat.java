@@ -0,0 +1,70 @@
+package project.src.Slave.Signals;
+
+import java.util.LinkedHashMap;
+
+public class Heartbeat {
+
+    private final String sender;
+    private final long bytesRead; // bytes of splits received, attempts included
+    private final long bytesMapped; // bytes of splits tokenized
+    private final long tokens; // words found by the map tasks, before the combiner
+    private final LinkedHashMap<String, Long> recordsSent; // word counts shuffled to each peer, the sender included
+    private final LinkedHashMap<String, Long> recordsReceived; // word counts shuffled from each peer
+    private final int shuffleQueueDepth; // word counts waiting for the shuffle
+    private final int commandQueueDepth; // commands waiting to be handled
+    private final long heapUsed;
+    private final long heapMax;
+
+    public Heartbeat(String sender, long bytesRead, long bytesMapped, long tokens, LinkedHashMap<String, Long> recordsSent, LinkedHashMap<String, Long> recordsReceived, int shuffleQueueDepth, int commandQueueDepth, long heapUsed, long heapMax){
+        this.sender = sender;
+        this.bytesRead = bytesRead;
+        this.bytesMapped = bytesMapped;
+        this.tokens = tokens;
+        this.recordsSent = recordsSent;
+        this.recordsReceived = recordsReceived;
+        this.shuffleQueueDepth = shuffleQueueDepth;
+        this.commandQueueDepth = commandQueueDepth;
+        this.heapUsed = heapUsed;
+        this.heapMax = heapMax;
+    }
+
+    public String getSender(){
+        return this.sender;
+    }
+
+    public long getBytesRead(){
+        return this.bytesRead;
+    }
+
+    public long getBytesMapped(){
+        return this.bytesMapped;
+    }
+
+    public long getTokens(){
+        return this.tokens;
+    }
+
+    public LinkedHashMap<String, Long> getRecordsSent(){
+        return this.recordsSent;
+    }
+
+    public LinkedHashMap<String, Long> getRecordsReceived(){
+        return this.recordsReceived;
+    }
+
+    public int getShuffleQueueDepth(){
+        return this.shuffleQueueDepth;
+    }
+
+    public int getCommandQueueDepth(){
+        return this.commandQueueDepth;
+    }
+
+    public long getHeapUsed(){
+        return this.heapUsed;
+    }
+
+    public long getHeapMax(){
+        return this.heapMax;
+    }
+}
@@ -0,0 +1,31 @@
+package project.src.Slave.Signals;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PartitionTable {
+
+    private final LinkedHashMap<String, Integer> spreads = new LinkedHashMap<>(); // hot words, with the number of reducers over which each one is spread
+
+    public void put(String word, int spread){
+        this.spreads.put(word, spread);
+    }
+
+    public int getSpread(String word){
+        // Number of reducers receiving the counts of the word, 1 if it is not a hot word
+        return this.spreads.getOrDefault(word, 1);
+    }
+
+    public boolean isHot(String word){
+        return this.spreads.containsKey(word);
+    }
+
+    public int size(){
+        return this.spreads.size();
+    }
+
+    public Map<String, Integer> getSpreads(){
+        return Collections.unmodifiableMap(this.spreads);
+    }
+}
@@ -0,0 +1,22 @@
+package project.src.Slave.Signals;
+
+import java.util.LinkedHashMap;
+
+public class PhaseTimes {
+
+    private final String sender;
+    private final LinkedHashMap<String, Long> durations; // milliseconds spent in each phase by the sender, in the order the phases ended
+
+    public PhaseTimes(String sender, LinkedHashMap<String, Long> durations){
+        this.sender = sender;
+        this.durations = durations;
+    }
+
+    public String getSender(){
+        return this.sender;
+    }
+
+    public LinkedHashMap<String, Long> getDurations(){
+        return this.durations;
+    }
+}
@@ -0,0 +1,449 @@
+package project.src.Slave.Signals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class SignalCodec {
+    /* NOTE: Attributes */
+
+    // Opcodes, first byte of every frame; a frame is [varint body length][opcode][payload]
+    public static final byte STATUS = 1; // [status ordinal][sender]
+    public static final byte COMMAND = 2; // [command ordinal][number of parameters][(tag, value)...]
+    public static final byte WORD_COUNT = 3; // [word][count]
+    public static final byte WORD_COUNT_BATCH = 4; // [number of word counts][(word, count)...]
+    public static final byte ATTEMPT_BATCH = 5; // [split][attempt][number of word counts][(word, count)...], shuffled words of an attempt of a split
+    public static final byte ATTEMPT_END = 6; // [split][attempt], last frame of an attempt on a shuffle stream
+    public static final byte SPLIT_PROGRESS = 7; // [sender][split][attempt][mapped bytes][length][flags: 1 if ended, 2 if failed]
+    public static final byte HEARTBEAT = 8; // [sender][bytes read][bytes mapped][tokens][shuffle queue depth][command queue depth][heap used][heap max][number of peers][(peer, records sent)...][number of peers][(peer, records received)...]
+    public static final byte SHUFFLE_HELLO = 9; // [sender], first frame of a shuffle stream
+    public static final byte PHASE_TIMES = 10; // [sender][number of phases][(phase, milliseconds)...]
+    public static final byte JOB_HEADER = 11; // [job], first frame of a connection to a slave daemon, which gives the connection to the slave of the job
+    public static final byte ARTIFACT = 12; // [hash], first frame of a connection from a master asking a slave daemon for the hash of its jar (empty hash), and frame of the answer
+    public static final byte FAILURE = 13; // [sender][reason], a slave that cannot go on with the job
+    public static final int ARTIFACT_REQUEST = -2; // returned by readJobHeader for a connection asking for the hash of the jar
+
+    // Tags of the command parameters
+    private static final byte NULL_TAG = 0;
+    private static final byte INTEGER_TAG = 1;
+    private static final byte BOOLEAN_TAG = 2;
+    private static final byte STRING_TAG = 3;
+    private static final byte ADDRESS_TAG = 4;
+    private static final byte LIST_TAG = 5;
+    private static final byte LONG_TAG = 6;
+    private static final byte PARTITION_TABLE_TAG = 7; // [number of hot words][(word, spread)...]
+
+    private SignalCodec() {}
+
+    /* NOTE: Methods */
+
+    // NOTE: Encoding
+
+    public static void writeFrame(OutputStream outputStream, Object signal) throws IOException {
+        // Write the signal as one frame on the stream (the stream is not flushed)
+
+        byte[] body = encode(signal);
+        writeVarInt(outputStream, body.length);
+        outputStream.write(body);
+    }
+
+    public static byte[] encode(Object signal) throws IOException {
+        // Encode a StatusSignal, a CommandSignal, a WordCount, a WordCount[], a SplitProgress, a Heartbeat, a PhaseTimes or a FailureSignal into a frame body
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (signal instanceof StatusSignal) {
+            StatusSignal status = (StatusSignal) signal;
+            body.write(STATUS);
+            writeVarInt(body, status.getStatus().ordinal());
+            writeString(body, status.getSender());
+        } else if (signal instanceof CommandSignal) {
+            CommandSignal command = (CommandSignal) signal;
+            body.write(COMMAND);
+            writeVarInt(body, command.getCommand().ordinal());
+            Object[] parameters = command.getParameters();
+            writeVarInt(body, parameters.length);
+            for (Object parameter : parameters) {
+                writeParameter(body, parameter);
+            }
+        } else if (signal instanceof WordCount) {
+            body.write(WORD_COUNT);
+            writeWordCount(body, (WordCount) signal);
+        } else if (signal instanceof WordCount[]) {
+            WordCount[] wordCounts = (WordCount[]) signal;
+            body.write(WORD_COUNT_BATCH);
+            writeVarInt(body, wordCounts.length);
+            for (WordCount wordCount : wordCounts) {
+                writeWordCount(body, wordCount);
+            }
+        } else if (signal instanceof SplitProgress) {
+            SplitProgress progress = (SplitProgress) signal;
+            body.write(SPLIT_PROGRESS);
+            writeString(body, progress.getSender());
+            writeVarInt(body, progress.getSplit());
+            writeVarInt(body, progress.getAttempt());
+            writeVarLong(body, progress.getMappedBytes());
+            writeVarLong(body, progress.getLength());
+            body.write((progress.isEnded() ? 1 : 0) | (progress.isFailed() ? 2 : 0));
+        } else if (signal instanceof Heartbeat) {
+            Heartbeat heartbeat = (Heartbeat) signal;
+            body.write(HEARTBEAT);
+            writeString(body, heartbeat.getSender());
+            writeVarLong(body, heartbeat.getBytesRead());
+            writeVarLong(body, heartbeat.getBytesMapped());
+            writeVarLong(body, heartbeat.getTokens());
+            writeVarInt(body, heartbeat.getShuffleQueueDepth());
+            writeVarInt(body, heartbeat.getCommandQueueDepth());
+            writeVarLong(body, heartbeat.getHeapUsed());
+            writeVarLong(body, heartbeat.getHeapMax());
+            writeRecords(body, heartbeat.getRecordsSent());
+            writeRecords(body, heartbeat.getRecordsReceived());
+        } else if (signal instanceof PhaseTimes) {
+            PhaseTimes phaseTimes = (PhaseTimes) signal;
+            body.write(PHASE_TIMES);
+            writeString(body, phaseTimes.getSender());
+            writeRecords(body, phaseTimes.getDurations());
+        } else if (signal instanceof FailureSignal) {
+            FailureSignal failure = (FailureSignal) signal;
+            body.write(FAILURE);
+            writeString(body, failure.getSender());
+            writeString(body, failure.getReason());
+        } else {
+            throw new IllegalArgumentException("Cannot encode signal " + signal);
+        }
+        return body.toByteArray();
+    }
+
+    public static void writeWordCount(OutputStream outputStream, WordCount wordCount) throws IOException {
+        writeString(outputStream, wordCount.getWord());
+        writeVarInt(outputStream, wordCount.getCount());
+    }
+
+    private static void writeRecords(OutputStream outputStream, Map<String, Long> records) throws IOException {
+        writeVarInt(outputStream, records.size());
+        for (Map.Entry<String, Long> entry : records.entrySet()) {
+            writeString(outputStream, entry.getKey());
+            writeVarLong(outputStream, entry.getValue());
+        }
+    }
+
+    public static void writeVarInt(OutputStream outputStream, int value) throws IOException {
+        // Unsigned LEB128: 7 bits per byte, the high bit set on every byte but the last
+
+        while ((value & ~0x7F) != 0) {
+            outputStream.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        outputStream.write(value);
+    }
+
+    public static void writeVarLong(OutputStream outputStream, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            outputStream.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        outputStream.write((int) value);
+    }
+
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static void writeString(OutputStream outputStream, String string) throws IOException {
+        // UTF-8 bytes prefixed by (length + 1), so that 0 stands for null
+
+        if (string == null) {
+            writeVarInt(outputStream, 0);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(outputStream, bytes.length + 1);
+        outputStream.write(bytes);
+    }
+
+    public static void writeJobHeader(OutputStream outputStream, int job) throws IOException {
+        writeVarInt(outputStream, 1 + varIntSize(job));
+        outputStream.write(JOB_HEADER);
+        writeVarInt(outputStream, job);
+    }
+
+    private static void writeParameter(OutputStream outputStream, Object parameter) throws IOException {
+        if (parameter == null) {
+            outputStream.write(NULL_TAG);
+        } else if (parameter instanceof Integer) {
+            outputStream.write(INTEGER_TAG);
+            writeVarInt(outputStream, (Integer) parameter);
+        } else if (parameter instanceof Long) {
+            outputStream.write(LONG_TAG);
+            writeVarLong(outputStream, (Long) parameter);
+        } else if (parameter instanceof Boolean) {
+            outputStream.write(BOOLEAN_TAG);
+            outputStream.write((Boolean) parameter ? 1 : 0);
+        } else if (parameter instanceof String) {
+            outputStream.write(STRING_TAG);
+            writeString(outputStream, (String) parameter);
+        } else if (parameter instanceof InetAddress) {
+            byte[] address = ((InetAddress) parameter).getAddress();
+            outputStream.write(ADDRESS_TAG);
+            writeVarInt(outputStream, address.length);
+            outputStream.write(address);
+        } else if (parameter instanceof ArrayList) {
+            ArrayList<?> list = (ArrayList<?>) parameter;
+            outputStream.write(LIST_TAG);
+            writeVarInt(outputStream, list.size());
+            for (Object element : list) {
+                writeString(outputStream, (String) element);
+            }
+        } else if (parameter instanceof PartitionTable) {
+            PartitionTable table = (PartitionTable) parameter;
+            outputStream.write(PARTITION_TABLE_TAG);
+            writeVarInt(outputStream, table.size());
+            for (Map.Entry<String, Integer> entry : table.getSpreads().entrySet()) {
+                writeString(outputStream, entry.getKey());
+                writeVarInt(outputStream, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot encode parameter " + parameter);
+        }
+    }
+
+    // NOTE: Decoding
+
+    public static int readJobHeader(InputStream inputStream) throws IOException {
+        // Job of a connection to a slave daemon; the stream is not buffered, so that the frames after the header are left to the slave of the job; returns -1 if the connection ends at once, ARTIFACT_REQUEST if it asks for the hash of the jar
+
+        byte[] body = readFrameBody(inputStream);
+        if (body == null) {
+            return -1;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        byte opcode = buffer.get();
+        if (opcode == ARTIFACT) {
+            return ARTIFACT_REQUEST;
+        } else if (opcode != JOB_HEADER) {
+            throw new IOException("Connection to a slave daemon does not start with its job.");
+        }
+        return readVarInt(buffer);
+    }
+
+    public static void writeArtifact(OutputStream outputStream, String hash) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(ARTIFACT);
+        writeString(body, hash);
+        writeVarInt(outputStream, body.size());
+        body.writeTo(outputStream);
+    }
+
+    public static String readArtifact(InputStream inputStream) throws IOException {
+        // Hash of the jar answered by a slave daemon; null if the connection ends first
+
+        byte[] body = readFrameBody(inputStream);
+        if (body == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        if (buffer.get() != ARTIFACT) {
+            throw new IOException("Answer of a slave daemon is not the hash of its jar.");
+        }
+        return readString(buffer);
+    }
+
+    public static Object readFrame(InputStream inputStream) throws IOException {
+        // Read one frame from the stream and decode it; returns null at the end of the stream
+
+        byte[] body = readFrameBody(inputStream);
+        return body == null ? null : decode(ByteBuffer.wrap(body));
+    }
+
+    public static byte[] readFrameBody(InputStream inputStream) throws IOException {
+        // Read one frame from the stream without decoding it, from its opcode to its end; returns null at the end of the stream
+
+        int first = inputStream.read();
+        if (first == -1) {
+            return null;
+        }
+        int length = first & 0x7F;
+        for (int shift = 7; (first & 0x80) != 0; shift += 7) {
+            first = inputStream.read();
+            if (first == -1) {
+                throw new EOFException("Truncated frame length");
+            }
+            length |= (first & 0x7F) << shift;
+        }
+
+        byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = inputStream.read(body, read, length - read);
+            if (n == -1) {
+                throw new EOFException("Truncated frame body");
+            }
+            read += n;
+        }
+        return body;
+    }
+
+    public static Object decode(ByteBuffer body) throws IOException {
+        // Decode a frame body (from its opcode to its end) into the signal it carries
+
+        byte opcode = body.get();
+        switch (opcode) {
+            case STATUS:
+                SlaveStatus status = SlaveStatus.values()[readVarInt(body)];
+                return new StatusSignal(status, readString(body));
+
+            case COMMAND:
+                SlaveCommand command = SlaveCommand.values()[readVarInt(body)];
+                Object[] parameters = new Object[readVarInt(body)];
+                for (int i = 0; i < parameters.length; i++) {
+                    parameters[i] = readParameter(body);
+                }
+                return new CommandSignal(command, parameters);
+
+            case WORD_COUNT:
+                return readWordCount(body);
+
+            case WORD_COUNT_BATCH:
+                WordCount[] wordCounts = new WordCount[readVarInt(body)];
+                for (int i = 0; i < wordCounts.length; i++) {
+                    wordCounts[i] = readWordCount(body);
+                }
+                return wordCounts;
+
+            case SPLIT_PROGRESS:
+                String sender = readString(body);
+                int split = readVarInt(body);
+                int attempt = readVarInt(body);
+                long mappedBytes = readVarLong(body);
+                long length = readVarLong(body);
+                int progressFlags = body.get();
+                return new SplitProgress(sender, split, attempt, mappedBytes, length, (progressFlags & 1) != 0, (progressFlags & 2) != 0);
+
+            case HEARTBEAT:
+                String heartbeatSender = readString(body);
+                long bytesRead = readVarLong(body);
+                long bytesMapped = readVarLong(body);
+                long tokens = readVarLong(body);
+                int shuffleQueueDepth = readVarInt(body);
+                int commandQueueDepth = readVarInt(body);
+                long heapUsed = readVarLong(body);
+                long heapMax = readVarLong(body);
+                LinkedHashMap<String, Long> recordsSent = readRecords(body);
+                return new Heartbeat(heartbeatSender, bytesRead, bytesMapped, tokens, recordsSent, readRecords(body), shuffleQueueDepth, commandQueueDepth, heapUsed, heapMax);
+
+            case PHASE_TIMES:
+                String phaseTimesSender = readString(body);
+                return new PhaseTimes(phaseTimesSender, readRecords(body));
+
+            case FAILURE:
+                String failureSender = readString(body);
+                return new FailureSignal(failureSender, readString(body));
+
+            default:
+                throw new IOException("Unknown opcode " + opcode);
+        }
+    }
+
+    public static WordCount readWordCount(ByteBuffer buffer) {
+        String word = readString(buffer);
+        return new WordCount(word, readVarInt(buffer));
+    }
+
+    private static LinkedHashMap<String, Long> readRecords(ByteBuffer buffer) {
+        int peers = readVarInt(buffer);
+        LinkedHashMap<String, Long> records = new LinkedHashMap<>();
+        for (int i = 0; i < peers; i++) {
+            String peer = readString(buffer);
+            records.put(peer, readVarLong(buffer));
+        }
+        return records;
+    }
+
+    public static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    public static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+
+    private static Object readParameter(ByteBuffer buffer) throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL_TAG:
+                return null;
+            case INTEGER_TAG:
+                return readVarInt(buffer);
+            case LONG_TAG:
+                return readVarLong(buffer);
+            case BOOLEAN_TAG:
+                return buffer.get() != 0;
+            case STRING_TAG:
+                return readString(buffer);
+            case ADDRESS_TAG:
+                byte[] address = new byte[readVarInt(buffer)];
+                buffer.get(address);
+                return InetAddress.getByAddress(address);
+            case LIST_TAG:
+                int size = readVarInt(buffer);
+                ArrayList<String> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readString(buffer));
+                }
+                return list;
+            case PARTITION_TABLE_TAG:
+                int hotWords = readVarInt(buffer);
+                PartitionTable table = new PartitionTable();
+                for (int i = 0; i < hotWords; i++) {
+                    String word = readString(buffer);
+                    table.put(word, readVarInt(buffer));
+                }
+                return table;
+            default:
+                throw new IOException("Unknown parameter tag " + tag);
+        }
+    }
+}
@@ -5,35 +5,40 @@ import java.net.InetAddress;
 import java.util.ArrayList;
 
 public enum SlaveCommand implements Serializable{
-    MASTER_INFO(InetAddress.class, Integer.class),    // Command received to provide master information, with "address" and "port" parameters
+    MASTER_INFO(InetAddress.class, Integer.class, String.class),    // Command received to provide master information, with "address" and "port" parameters, and the name of the slave for its statuses
     YOUR_INFO(String.class, Boolean.class, String.class),    // Command received to provide slave's own information
-    SLAVES_LIST(ArrayList.class),    // Command received to provide the list of available slaves
+    SLAVES_LIST(ArrayList.class, PartitionTable.class),    // Command received to provide the list of available slaves, with the partition table of the hot words spread over several reducers
 
-    INTERCONNECT,   // Command received to create a fully connected network between slaves
+    INTERCONNECT(Boolean.class, Long.class, Integer.class, Boolean.class),   // Command received to create a fully connected network between slaves and start the reducer, with whether it keeps its counts off-heap, its memory budget in bytes (0 for half of the heap), the number of splits, and whether they may be speculated
 
     SHUFFLE_ON, // Command received to start the shuffling process on the slave
 
-    MAP, // Command received to initiate the mapping process on the slave
+    MAP(Integer.class), // Command received to initiate the mapping process on the slave, with the combiner capacity (0 to disable it)
 
-    REDUCE, // Command received to start the reduce process on the slave
+    SPLIT(Integer.class, Long.class, Integer.class), // Command received with the number and the size of a split, and the number of this attempt of it, whose bytes follow on the same connection; mapped as they arrive
 
-    SEND_RESULTS(Integer.class);   // Command received to send the computed results to the master
+    COMMIT_SPLIT(Integer.class, Integer.class), // Command received once an attempt of a split is the first one to end: its words are reduced, the ones of the other attempts of the split are discarded
 
-    private Class<?>[] parameterTypes;
-    private Object[] parameters;
+    SEND_RESULTS(Integer.class),   // Command received to send the computed results to the master
+
+    ABORT; // Command received when the master aborts the job: the slave stops its attempts, its mappers and its shuffle, and terminates without results
+
+    private final Class<?>[] parameterTypes;
 
     @SafeVarargs
     private SlaveCommand(Class<?>... types) {
         parameterTypes = types;
-        parameters = new Object[types.length];
     }
 
-    public void setParameters(Object... params) {
-        if (params.length == parameters.length) {
+    public CommandSignal with(Object... params) {
+        // The command with its parameters, one value per sending, as the constants are shared by all the masters and slaves of a JVM
+        return new CommandSignal(this, params);
+    }
+
+    public void checkParameters(Object... params) {
+        if (params.length == parameterTypes.length) {
             for (int i = 0; i < params.length; i++) {
-                if (params[i] != null && parameterTypes[i].isAssignableFrom(params[i].getClass())) {
-                    parameters[i] = params[i];
-                } else {
+                if (params[i] == null || !parameterTypes[i].isAssignableFrom(params[i].getClass())) {
                     throw new IllegalArgumentException("Invalid parameter type for " + this.name());
                 }
             }
@@ -41,8 +46,4 @@ public enum SlaveCommand implements Serializable{
             throw new IllegalArgumentException("Invalid number of parameters for " + this.name());
         }
     }
-
-    public Object[] getParameters() {
-        return parameters;
-    }
 }
\ No newline at end of file
@@ -11,30 +11,20 @@ public enum SlaveStatus implements Serializable{
     SHUFFLE_ON(5), // The slave has started the shuffle thread process
     MAPING(6), // The slave is currently performing the maping operation
     MAPING_DONE(7), // The slave has finished the maping operation
-    WAITING_REDUCE(8), // The slave is waiting for the reduce operation to start
+    WAITING_REDUCE(8), // The slave has sent all its words, and waits for the end of the words of the other slaves
     REDUCING(9), // The slave is currently performing the reduce operation
-    REDUCE_DONE(10), // The slave has completed the reduce operation
+    REDUCE_DONE(10), // All slaves have ended their shuffle stream to the slave, whose counts are complete
     SENDING_RESULTS(11), // The slave is sending the results to the master
     SENDING_RESULTS_DONE(12), // The slave has completed sending the results
     TERMINATED(13); // The slave has terminated its execution
 
     private final int order;
-    private String sender;
 
-    SlaveStatus(int order){//, String.class sender) {
+    SlaveStatus(int order){
         this.order = order;
-        this.sender = null;
     }
 
     public int getOrder() {
         return order;
     }
-
-    public String getSender() {
-        return sender;
-    }
-
-    public void setSender(String sender){
-        this.sender = sender;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package project.src.Slave.Signals;
+
+public class SplitProgress {
+
+    private final String sender;
+    private final int split;
+    private final int attempt; // attempt of the split on the sender, numbered by the master
+    private final long mappedBytes;
+    private final long length; // size of the split
+    private final boolean ended; // the attempt is over, and its words are all sent
+    private final boolean failed; // the attempt is over without having received or mapped all the split, its words must not be committed
+
+    public SplitProgress(String sender, int split, int attempt, long mappedBytes, long length, boolean ended, boolean failed){
+        this.sender = sender;
+        this.split = split;
+        this.attempt = attempt;
+        this.mappedBytes = mappedBytes;
+        this.length = length;
+        this.ended = ended;
+        this.failed = failed;
+    }
+
+    public String getSender(){
+        return this.sender;
+    }
+
+    public int getSplit(){
+        return this.split;
+    }
+
+    public int getAttempt(){
+        return this.attempt;
+    }
+
+    public long getMappedBytes(){
+        return this.mappedBytes;
+    }
+
+    public long getLength(){
+        return this.length;
+    }
+
+    public boolean isEnded(){
+        return this.ended;
+    }
+
+    public boolean isFailed(){
+        return this.failed;
+    }
+}
@@ -0,0 +1,20 @@
+package project.src.Slave.Signals;
+
+public class StatusSignal {
+
+    private final SlaveStatus status;
+    private final String sender; // name of the slave, as given by the master
+
+    public StatusSignal(SlaveStatus status, String sender){
+        this.status = status;
+        this.sender = sender;
+    }
+
+    public SlaveStatus getStatus(){
+        return this.status;
+    }
+
+    public String getSender(){
+        return this.sender;
+    }
+}
@@ -1,9 +1,13 @@
 package project.src.Slave.Signals;
 
 import java.io.Serializable;
+import java.util.Comparator;
 
 public class WordCount implements Serializable{
 
+    // Order of the results: by decreasing count, then by word in the order of their UTF-8 bytes (the order of the spilled runs)
+    public static final Comparator<WordCount> RESULT_ORDER = (a, b) -> a.count != b.count ? Integer.compare(b.count, a.count) : compareWords(a.word, b.word);
+
     private final int count;
     private final String word;
 
@@ -24,4 +28,21 @@ public class WordCount implements Serializable{
     public int getCount(){
         return this.count;
     }
+
+    public static int compareWords(String a, String b){
+        // Code point order, which is the order of the UTF-8 bytes; unlike String.compareTo, a surrogate is after any other char, as it stands for a code point beyond them all
+
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                if (Character.isSurrogate(x) != Character.isSurrogate(y)) {
+                    return Character.isSurrogate(x) ? 1 : -1;
+                }
+                return x - y;
+            }
+        }
+        return a.length() - b.length();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package project.src.Slave;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import project.src.Slave.Signals.PartitionTable;
+
+public class SkewAwarePartitioner implements Partitioner {
+    /* NOTE: Attributes */
+
+    private final int reducers;
+    private final HashMap<String, int[]> hotWords = new HashMap<>(); // {spread, next reducer offset} of each hot word; only used by the shuffling thread
+
+    // NOTE: Constructor
+    public SkewAwarePartitioner(PartitionTable table, int reducers) {
+        this.reducers = reducers;
+        for (Map.Entry<String, Integer> entry : table.getSpreads().entrySet()) {
+            this.hotWords.put(entry.getKey(), new int[] {Math.min(entry.getValue(), reducers), 0});
+        }
+    }
+
+    /* NOTE: Methods */
+
+    @Override
+    public int reducer(String word) {
+        // A hot word goes round-robin to the spread reducers following its hash reducer, the others go to their hash reducer
+
+        int reducer = HashPartitioner.reducer(word, this.reducers);
+        int[] spread = this.hotWords.get(word);
+        if (spread == null) {
+            return reducer;
+        }
+        reducer = (reducer + spread[1]) % this.reducers;
+        spread[1] = (spread[1] + 1) % spread[0];
+        return reducer;
+    }
+}
@@ -1,31 +1,79 @@
 package project.src.Slave;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import project.src.Slave.Signals.CommandSignal;
+import project.src.Slave.Signals.FailureSignal;
+import project.src.Slave.Signals.PartitionTable;
+import project.src.Slave.Signals.PhaseTimes;
+import project.src.Slave.Signals.SignalCodec;
+import project.src.Slave.Signals.SlaveCommand;
+import project.src.Slave.Signals.SlaveStatus;
+import project.src.Slave.Signals.SplitProgress;
+import project.src.Slave.Signals.StatusSignal;
+import project.src.Slave.Signals.WordCount;
 
 public class Slave {
     /* NOTE: ATTRIBUTES */
 
     public static final int STATUS_PORT = 8889;
     public static final int SHUFFLE_PORT = 8888;
+    public static final int SHUFFLE_BATCH_SIZE = 1024; // Number of words sent at once to another slave
+    public static final long SHUFFLE_LINGER_MS = 50; // Max time a word waits in a non-full batch before being sent
+    public static final int SHUFFLE_CONNECT_ATTEMPTS = 5; // Number of tries to open the shuffle connection with a slave before the shuffle fails
+    public static final long SHUFFLE_CONNECT_BACKOFF_MS = 100; // Wait before the second try to open a shuffle connection, doubled after each failed try
+    public static final int MAP_QUEUE_CAPACITY = 65536; // Max number of word counts waiting for the shuffle, the mapper blocks beyond
+    public static final long MAP_CHUNK_SIZE = 16L * 1024 * 1024; // Size of the line-aligned chunks of a split mapped by one task
+    public static final long PROGRESS_INTERVAL_MS = 1000; // Time between two reports of the progress of an attempt to the master
+    public static final long HEARTBEAT_INTERVAL_MS = 1000; // Time between two heartbeats with the counters of the slave to the master
+
+    private static final Object END_OF_COMMANDS = new Object(); // enqueued to stop the command handling
+    private static final WordCount END_OF_WORDS = new WordCount(null, 0); // enqueued by the mapper after its last word, once all splits are committed
 
     private volatile boolean listeningCommandsRunning = true;
     private volatile boolean listeningWordsRunning = true;
-    private volatile boolean mapingRunning = true;
+    private volatile boolean shufflingRunning = true;
+    private volatile boolean aborted = false; // the job was aborted, by the master or because the shuffle failed: nothing more is mapped, shuffled or reported, but the failure
 
     private boolean splitter;
+    private int combinerCapacity = 0; // max number of distinct words pre-aggregated by each map task before shuffle, 0 if no combiner
+    private final int mapParallelism; // number of threads of the map pool
+    private final int statusPort; // port on which the commands and the splits are received, STATUS_PORT unless several slaves share the host
+    private final ForkJoinPool mapPool; // runs the map tasks of the split as its chunks arrive
+    private final SlaveDaemon daemon; // daemon that owns the ports and gives the connections of the job to this slave, null for a slave that lives for one job
+    private final int job; // job of the slave in its daemon, -1 for a slave that lives for one job
+    private final Path workDirectory; // folder of the splits, spills and staged attempts of the job
 
     private String myAdress = null;
     private String masterIP;
@@ -35,24 +83,66 @@ public class Slave {
     private Integer masterRESULT_PORT;
 
     private ArrayList<String> slavesAdresses = new ArrayList<>();
+    private PartitionTable partitionTable = new PartitionTable(); // hot words spread over several reducers, whose partial counts are summed by the master
+    private Partitioner partitioner; // reducer of each word count sent by the shuffle
 
     private HashMap<String, InetAddress> slavesIP = new HashMap<>();
-    private HashMap<String, Integer> wordsCount = new HashMap<>();
-
-    private ConcurrentLinkedQueue<Object> commandsReceived = new ConcurrentLinkedQueue<>();
-    private ConcurrentLinkedQueue<String> wordsReceived = new ConcurrentLinkedQueue<>();
-    private ConcurrentLinkedQueue<String> wordsSplitten = new ConcurrentLinkedQueue<>();
+    private boolean offHeapReduce = false; // whether the counts are kept off-heap, set by the INTERCONNECT command
+    private WordCountTable wordsCount = new WordCountTable(); // counts of the words of the partition of the slave
+    private OffHeapCountTable offHeapWordsCount; // same counts, keyed by the UTF-8 bytes of the words outside of the heap, used instead if offHeapReduce
+    private long reduceMemoryBudget; // memory of the counts beyond which they are spilled to disk, set by the INTERCONNECT command
+    private SpilledRuns spilledRuns; // sorted runs of counts written when the budget is exceeded
+    private ConcurrentHashMap<String, ShuffleConnection> shuffleConnections = new ConcurrentHashMap<>(); // one persistent connection per slave, also read by the heartbeats
+    private final SlaveMetrics metrics = new SlaveMetrics(); // bytes, tokens and records counted since the start, sent with the heartbeats
+    private final LinkedHashMap<String, Long> phaseTimes = new LinkedHashMap<>(); // milliseconds spent in each phase, sent to the master before terminating
+
+    private LinkedBlockingQueue<Object> commandsReceived = new LinkedBlockingQueue<>(); // each command with its parameters
+    private LinkedBlockingQueue<Object> wordsSplitten = new LinkedBlockingQueue<>(MAP_QUEUE_CAPACITY); // word counts, and each SplitAttempt twice, before its first word and after its last one
+
+    private int splits; // number of splits of the input, set by the INTERCONNECT command
+    private boolean speculativeSplits; // whether a split may be mapped by several attempts, set by the INTERCONNECT command
+    private volatile SplitAttempt currentAttempt; // attempt being mapped by this slave, the master launches at most one at a time on it
+    private final Object attemptsLock = new Object(); // guards the attempts received by the reducer
+    private HashMap<Integer, Integer> committedAttempts = new HashMap<>(); // attempt of each split whose words are reduced
+    private HashMap<Integer, StagedAttempt> receivedAttempts = new HashMap<>(); // every attempt whose words were received, with its batches until it is committed or discarded
+
+    private CountDownLatch splitsCommitted; // counts the splits not committed yet, the map of the slave ends once they all are; created by the INTERCONNECT command
+    private CountDownLatch splitsReduced; // counts the splits whose committed attempt has not ended yet on this reducer
+    private CountDownLatch termination = new CountDownLatch(1); // released once the TERMINATED status is sent
 
     private SlaveStatus status = SlaveStatus.IDLE;
 
     // NOTE:  Constructor
 
-    public Slave(){};
+    public Slave(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public Slave(int mapParallelism){
+        this(mapParallelism, STATUS_PORT);
+    }
+
+    public Slave(int mapParallelism, int statusPort){
+        this(mapParallelism, statusPort, null, -1, Paths.get("."));
+    }
 
-    public void setStatus(SlaveStatus status){
+    public Slave(SlaveDaemon daemon, int job){
+        this(daemon.getMapParallelism(), daemon.getStatusPort(), daemon, job, Paths.get("job" + job));
+    }
+
+    private Slave(int mapParallelism, int statusPort, SlaveDaemon daemon, int job, Path workDirectory){
+        this.mapParallelism = mapParallelism;
+        this.statusPort = statusPort;
+        this.mapPool = new ForkJoinPool(mapParallelism);
+        this.daemon = daemon;
+        this.job = job;
+        this.workDirectory = workDirectory;
+        this.spilledRuns = new SpilledRuns(workDirectory.resolve("spills"));
+    }
+
+    public synchronized void setStatus(SlaveStatus status){
         if (this.status.compareTo(status) < 0){
             this.status = status;
-            this.status.setSender(this.myAdress);
         }
     }
 
@@ -64,20 +154,10 @@ public class Slave {
         //Implementation of startCommandListeningThread method
 
         Thread commandListeningThread = new Thread(() -> {
-            try (ServerSocket serverSocket = new ServerSocket(STATUS_PORT)) {
-                System.out.println("Listening to commands on port " + STATUS_PORT);
+            try (ServerSocket serverSocket = new ServerSocket(this.statusPort)) {
+                System.out.println("Listening to commands on port " + this.statusPort);
                 while (this.listeningCommandsRunning) {
-                    Socket clientSocket = serverSocket.accept();
-                    System.out.println(clientSocket.getInetAddress() + " connected");
-                    ObjectInputStream objectInputStream = new ObjectInputStream(clientSocket.getInputStream());
-                    try {
-                        Object signal = objectInputStream.readObject();
-                        this.commandsReceived.add(signal);
-                    } catch (ClassNotFoundException e) {
-                        System.out.println("Unknown object received.");
-                        e.printStackTrace();
-                    }
-                    clientSocket.close();
+                    handleCommandConnection(serverSocket.accept());
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -86,19 +166,58 @@ public class Slave {
         commandListeningThread.start();
     }
 
+    public void handleCommandConnection(Socket clientSocket) {
+        // Implementation of handleCommandConnection method, reads the command of a connection from the master; called by the listening thread of the slave, or by its daemon
+
+        System.out.println(clientSocket.getInetAddress() + " connected");
+        boolean splitReceiving = false; // the connection goes on with the bytes of a split, it is closed by their receiving thread
+        try {
+            InputStream inputStream = new BufferedInputStream(clientSocket.getInputStream());
+            Object signal = SignalCodec.readFrame(inputStream);
+            SlaveCommand command = signal instanceof CommandSignal ? ((CommandSignal) signal).getCommand() : null;
+            if (command == SlaveCommand.SPLIT) {
+                Object[] parameters = ((CommandSignal) signal).getParameters();
+                startSplitReceivingThread(clientSocket, inputStream, (Integer) parameters[0], (Long) parameters[1], (Integer) parameters[2]);
+                splitReceiving = true;
+            } else if (command == SlaveCommand.COMMIT_SPLIT) {
+                // Commits are applied at once, the mappers and reducers wait for them
+                Object[] parameters = ((CommandSignal) signal).getParameters();
+                commitAttempt((Integer) parameters[0], (Integer) parameters[1]);
+            } else if (command == SlaveCommand.ABORT) {
+                // Applied at once too, the command handling may be waiting for the mappers
+                abort();
+            } else if (signal != null) {
+                this.commandsReceived.add(signal);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Unknown object received.");
+            e.printStackTrace();
+        }
+        if (!splitReceiving) {
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     public void stopCommandListeningThread() {
         this.listeningCommandsRunning = false;
+        this.commandsReceived.add(END_OF_COMMANDS);
     }
 
     public void startCommandHandlingThread() {
         //Implementation of startCommandHandlingThread method
 
         Thread commandHandlingThread = new Thread(() -> {
-            while (this.listeningCommandsRunning | !this.commandsReceived.isEmpty()) {
-                if (!this.commandsReceived.isEmpty()) {
-                    Object command = this.commandsReceived.poll();
+            try {
+                Object command;
+                while ((command = this.commandsReceived.take()) != END_OF_COMMANDS) {
                     handleCommand(command);
                 }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
         });
         commandHandlingThread.start();
@@ -107,69 +226,76 @@ public class Slave {
     public void handleCommand(Object command){
         // Implementation of handleCommand method
 
-        if (command instanceof SlaveCommand) {
-            SlaveCommand slaveCommand = (SlaveCommand) command;
-            Object[] parameters = slaveCommand.getParameters();
+        if (command instanceof CommandSignal) {
+            SlaveCommand slaveCommand = ((CommandSignal) command).getCommand();
+            Object[] parameters = ((CommandSignal) command).getParameters();
 
             switch (slaveCommand) {
                 case MASTER_INFO:
-                    this.masterIP = (String) parameters[0];
+                    this.masterIP = ((InetAddress) parameters[0]).getHostAddress();
                     this.masterSTATUS_PORT = (Integer) parameters[1];
+                    this.myAdress = (String) parameters[2];
                     this.setStatus(SlaveStatus.MASTER_INFO_RECEIVED);
+                    sendStatus();
+                    startHeartbeatThread();
                     break;
                 
                 case YOUR_INFO:
                     this.myAdress = (String) parameters[0];
                     this.splitter = (boolean) parameters[1];
-                    this.domain = (String) parameters[3];
+                    this.domain = (String) parameters[2];
                     this.setStatus(SlaveStatus.MY_INFO_RECEIVED);
                     sendStatus();
                     break;
                 
                 case SLAVES_LIST:
                     this.slavesAdresses = (ArrayList<String>) parameters[0]; // FIXME: cast warning
+                    this.partitionTable = (PartitionTable) parameters[1];
+                    this.partitioner = this.partitionTable.size() > 0 ? new SkewAwarePartitioner(this.partitionTable, this.slavesAdresses.size()) : new HashPartitioner(this.slavesAdresses.size());
                     findSlavesIP();
                     this.setStatus(SlaveStatus.SLAVES_INFO_RECEIVED);
                     sendStatus();
                     break;
 
                 case INTERCONNECT:
-                    startWordListeningThread();
-                    if (this.splitter){
-                        this.setStatus(SlaveStatus.INTERCONNECTED);
-                    } else {
-                        this.setStatus(SlaveStatus.WAITING_REDUCE);
+                    this.offHeapReduce = (Boolean) parameters[0];
+                    this.reduceMemoryBudget = (Long) parameters[1] > 0 ? (Long) parameters[1] : Runtime.getRuntime().maxMemory() / 2;
+                    if (this.offHeapReduce) {
+                        this.offHeapWordsCount = new OffHeapCountTable();
+                    }
+                    this.splits = (Integer) parameters[2];
+                    this.speculativeSplits = (Boolean) parameters[3];
+                    this.splitsCommitted = new CountDownLatch(this.splits);
+                    this.splitsReduced = new CountDownLatch(this.splits);
+                    if (!this.speculativeSplits) {
+                        // Attempt i of split i is the only one, its words are reduced as they arrive
+                        synchronized (this.attemptsLock) {
+                            for (int split = 0; split < this.splits; split++) {
+                                this.committedAttempts.put(split, split);
+                            }
+                        }
                     }
+                    startWordListeningThread();
+                    startReducingThread();
+                    this.setStatus(SlaveStatus.INTERCONNECTED);
                     sendStatus();
                     break;
 
                 case SHUFFLE_ON:
-                    if (this.splitter){
-                        startShufflingThread();
-                        this.setStatus(SlaveStatus.SHUFFLE_ON);
-                    } else {
-                        this.setStatus(SlaveStatus.WAITING_REDUCE);
-                    }
+                    startShufflingThread();
+                    this.setStatus(SlaveStatus.SHUFFLE_ON);
                     sendStatus();
                     break;
 
                 case MAP:
-                    if (this.splitter){
-                        startMapingThread();
-                        this.setStatus(SlaveStatus.MAPING);
-                    } else {
-                        this.setStatus(SlaveStatus.WAITING_REDUCE);
-                    }
-                    sendStatus();
-                    break;
-
-                case REDUCE:
-                    startReducingThread();
-                    this.setStatus(SlaveStatus.REDUCING);
+                    this.combinerCapacity = (Integer) parameters[0];
+                    startMapingThread();
+                    this.setStatus(SlaveStatus.MAPING);
                     sendStatus();
                     break;
 
                 case SEND_RESULTS:
+                    this.masterRESULT_PORT = (Integer) parameters[0];
                     this.startSendingResult();
                     this.setStatus(SlaveStatus.SENDING_RESULTS);
                     sendStatus();
@@ -186,7 +312,7 @@ public class Slave {
         
         try {
             for (String slave : slavesAdresses){
-                this.slavesIP.put(slave, InetAddress.getByName(slave + this.domain));
+                this.slavesIP.put(slave, InetAddress.getByName(SlaveAddress.host(slave) + this.domain));
             }
         } catch (UnknownHostException e) {
             e.printStackTrace();
@@ -196,10 +322,81 @@ public class Slave {
     public void sendStatus() {
         // Implementation of sendStatus method
 
+        if (this.aborted) {
+            return;
+        }
+        try {
+            Socket socket = new Socket(masterIP, this.masterSTATUS_PORT);
+            OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+            SignalCodec.writeFrame(outputStream, new StatusSignal(this.status, this.myAdress));
+            outputStream.flush();
+
+            // Close the output stream and socket connection
+            outputStream.close();
+            socket.close();
+        } catch (IOException e) {
+            // Handle any IO exceptions
+            e.printStackTrace();
+        }
+    }
+
+    public void recordPhase(String phase, long startNanos) {
+        // Implementation of recordPhase method, adds the time since startNanos to the phase; the phases run by several threads, like the receiving of the attempts, are summed
+
+        long milliseconds = (System.nanoTime() - startNanos) / 1000000;
+        synchronized (this.phaseTimes) {
+            this.phaseTimes.merge(phase, milliseconds, Long::sum);
+        }
+    }
+
+    public void sendPhaseTimes() {
+        // Implementation of sendPhaseTimes method
+
         try {
             Socket socket = new Socket(masterIP, this.masterSTATUS_PORT);
-            ObjectOutputStream outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.writeObject(this.status);
+            OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+            synchronized (this.phaseTimes) {
+                SignalCodec.writeFrame(outputStream, new PhaseTimes(this.myAdress, this.phaseTimes));
+            }
+            outputStream.flush();
+
+            // Close the output stream and socket connection
+            outputStream.close();
+            socket.close();
+        } catch (IOException e) {
+            // Handle any IO exceptions
+            e.printStackTrace();
+        }
+    }
+
+    public void startHeartbeatThread() {
+        // Implementation of startHeartbeatThread method, sends the counters of the slave every HEARTBEAT_INTERVAL_MS until it terminates
+
+        Thread heartbeatThread = new Thread(() -> {
+            try {
+                while (!this.termination.await(HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                    sendHeartbeat();
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        heartbeatThread.setDaemon(true);
+        heartbeatThread.start();
+    }
+
+    public void sendHeartbeat() {
+        // Implementation of sendHeartbeat method
+
+        if (this.myAdress == null) {
+            return; // the master does not know the slave yet
+        }
+        try {
+            Socket socket = new Socket(masterIP, this.masterSTATUS_PORT);
+            OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+            LinkedHashMap<String, Long> recordsSent = new LinkedHashMap<>();
+            this.shuffleConnections.forEach((slave, connection) -> recordsSent.put(slave, connection.getRecordsSent()));
+            SignalCodec.writeFrame(outputStream, this.metrics.heartbeat(this.myAdress, recordsSent, this.wordsSplitten.size(), this.commandsReceived.size()));
             outputStream.flush();
 
             // Close the output stream and socket connection
@@ -216,19 +413,14 @@ public class Slave {
     public void startWordListeningThread() {
         //Implementation of startWordListeningThread method
 
+        if (this.daemon != null) {
+            return; // the daemon listens on the shuffle port for all its jobs, and gives the connections of this one to startWordReceivingThread
+        }
         Thread wordListeningThread = new Thread(() -> {
-            try (ServerSocket serverSocket = new ServerSocket(STATUS_PORT)) {
+            try (ServerSocket serverSocket = new ServerSocket(SlaveAddress.shufflePort(this.myAdress))) {
                 while (this.listeningWordsRunning) {
                     Socket clientSocket = serverSocket.accept();
-                    ObjectInputStream objectInputStream = new ObjectInputStream(clientSocket.getInputStream());
-                    try {
-                        String word = ((WordCount) objectInputStream.readObject()).getWord();
-                        this.wordsReceived.add(word);
-                    } catch (ClassNotFoundException | ClassCastException e) {
-                        System.out.println("Unknown object received.");
-                        e.printStackTrace();
-                    }
-                    clientSocket.close();
+                    startWordReceivingThread(clientSocket);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -237,116 +429,588 @@ public class Slave {
         wordListeningThread.start();
     }
 
+    public void startWordReceivingThread(Socket clientSocket) {
+        //Implementation of startWordReceivingThread method
+
+        Thread wordReceivingThread = new Thread(() -> {
+            try (InputStream inputStream = new BufferedInputStream(clientSocket.getInputStream())) {
+                byte[] frame = SignalCodec.readFrameBody(inputStream);
+                String peer = frame == null ? null : ShuffleConnection.readSender(frame);
+                while ((frame = SignalCodec.readFrameBody(inputStream)) != null) {
+                    this.metrics.addRecordsReceived(peer, ShuffleConnection.batchWords(frame));
+                    receiveShuffleFrame(frame);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                try {
+                    clientSocket.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        wordReceivingThread.start();
+    }
+
     public void stopWordListeningThread() {
         this.listeningWordsRunning = false;
     }
 
     // NOTE: Handle map-reduce
 
-    public void startMapingThread() {
-        // Implementation of startMapingThread
+    public void startSplitReceivingThread(Socket clientSocket, InputStream inputStream, int split, long length, int attempt) {
+        // Implementation of startSplitReceivingThread method, writes the split in ./splits/ and gives each line-aligned chunk to the map pool as soon as it has arrived; stops early if another attempt of the split is committed
 
-        Thread mapingThread = new Thread(() -> {
-            File splitsFolder = new File("./splits/");
-            File[] files = splitsFolder.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isFile() & file.getName().startsWith("S")) {
-                        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                for (String word : line.split(" ")){
-                                    this.wordsSplitten.add(word);
-                                }
+        SplitAttempt splitAttempt = new SplitAttempt(split, attempt, length);
+        this.currentAttempt = splitAttempt;
+        synchronized (this.attemptsLock) {
+            Integer committedAttempt = this.committedAttempts.get(split);
+            if ((committedAttempt != null && committedAttempt != attempt) || this.aborted) {
+                splitAttempt.cancel(); // committed while this attempt was on its way, or the job is over
+            }
+        }
+        enqueueAttempt(splitAttempt);
+        startProgressReportingThread(splitAttempt);
+
+        long receiveStart = System.nanoTime();
+        Thread splitReceivingThread = new Thread(() -> {
+            Path path = this.workDirectory.resolve("splits/S" + split + "_" + attempt + ".txt");
+            long chunkSize = Math.min(MAP_CHUNK_SIZE, Math.max(SplitTokenizer.CHUNK_SIZE, length / this.mapParallelism));
+            ArrayList<MapTask> mapTasks = new ArrayList<>();
+            boolean complete = false; // the whole split was received, and all its chunks mapped
+            try {
+                Files.createDirectories(path.getParent());
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+                    ReadableByteChannel source = Channels.newChannel(inputStream);
+                    long received = 0;
+                    long mapped = 0;
+                    while (received < length && !splitAttempt.isCancelled()) {
+                        long chunkEnd = Math.min(length, received + chunkSize);
+                        while (received < chunkEnd) {
+                            long transferred = channel.transferFrom(source, received, chunkEnd - received);
+                            if (transferred <= 0) {
+                                throw new EOFException("Split " + split + " truncated after " + received + " of " + length + " bytes");
                             }
-                        } catch (IOException e){
-                            e.printStackTrace();
+                            received += transferred;
+                            this.metrics.addBytesRead(transferred);
+                        }
+                        // The last line may still be arriving, only the complete ones are mapped
+                        long lineEnd = received == length ? length : SplitTokenizer.lastLineEnd(channel, mapped, received);
+                        if (lineEnd > mapped && !splitAttempt.isCancelled()) {
+                            MapTask mapTask = new MapTask(path, mapped, lineEnd - mapped, this.combinerCapacity, splitAttempt, this.metrics, wordCount -> {
+                                if (!splitAttempt.isCancelled()) {
+                                    enqueueWord(wordCount);
+                                }
+                            });
+                            mapTasks.add(mapTask);
+                            this.mapPool.execute(mapTask);
+                            mapped = lineEnd;
                         }
                     }
+                    recordPhase("receiveSplits", receiveStart);
+                    if (splitAttempt.isCancelled()) {
+                        System.out.println("Attempt " + attempt + " of split " + split + " cancelled after " + received + " of " + length + " bytes");
+                    } else {
+                        System.out.println("Split " + split + " received (" + length + " bytes)");
+                    }
+                    complete = received == length && !splitAttempt.isCancelled();
+                }
+            } catch (IOException | RejectedExecutionException e) {
+                e.printStackTrace();
+            } finally {
+                try {
+                    clientSocket.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            for (MapTask mapTask : mapTasks) {
+                try {
+                    mapTask.join();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    complete = false;
+                }
+            }
+            if (!complete || splitAttempt.isCancelled()) {
+                // Its end is reported as a failure, so that the words it sent are never committed and the master launches another attempt if none is committed
+                splitAttempt.fail();
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            enqueueAttempt(splitAttempt); // its end, once all its words are enqueued
+        });
+        splitReceivingThread.start();
+    }
+
+    public void startProgressReportingThread(SplitAttempt splitAttempt) {
+        // Implementation of startProgressReportingThread method, reports the bytes mapped by the attempt every PROGRESS_INTERVAL_MS until its end, which is reported by the shuffle
+
+        Thread progressReportingThread = new Thread(() -> {
+            try {
+                while (!splitAttempt.isEnded()) {
+                    Thread.sleep(PROGRESS_INTERVAL_MS);
+                    if (!splitAttempt.isEnded()) {
+                        sendProgress(splitAttempt, false);
+                    }
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        progressReportingThread.setDaemon(true);
+        progressReportingThread.start();
+    }
+
+    public void sendProgress(SplitAttempt splitAttempt, boolean ended) {
+        // Implementation of sendProgress method
+
+        if (this.aborted) {
+            return;
+        }
+        try {
+            Socket socket = new Socket(masterIP, this.masterSTATUS_PORT);
+            OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+            SignalCodec.writeFrame(outputStream, new SplitProgress(this.myAdress, splitAttempt.getSplit(), splitAttempt.getAttempt(), splitAttempt.getMappedBytes(), splitAttempt.getLength(), ended && !splitAttempt.isFailed(), ended && splitAttempt.isFailed()));
+            outputStream.flush();
+
+            // Close the output stream and socket connection
+            outputStream.close();
+            socket.close();
+        } catch (IOException e) {
+            // Handle any IO exceptions
+            e.printStackTrace();
+        }
+    }
+
+    public void startMapingThread() {
+        // Implementation of startMapingThread, the splits are mapped while they are received; this thread closes the words stream once all splits are committed, on this slave or another one
+
+        long mapStart = System.nanoTime();
+        Thread mapingThread = new Thread(() -> {
+            try {
+                this.splitsCommitted.await();
+                SplitAttempt splitAttempt = this.currentAttempt;
+                if (splitAttempt != null) {
+                    splitAttempt.awaitEnd(); // a cancelled attempt may still be stopping
                 }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
-            this.mapingRunning = false;
+            this.mapPool.shutdown();
+            enqueueWord(END_OF_WORDS);
+            recordPhase("map", mapStart);
             this.setStatus(SlaveStatus.MAPING_DONE);
         });
         mapingThread.start();
     }
 
+    public void enqueueAttempt(SplitAttempt splitAttempt) {
+        // Implementation of enqueueAttempt method, marks the start or the end of the words of an attempt for the shuffle
+
+        if (this.aborted) {
+            return;
+        }
+        try {
+            this.wordsSplitten.put(splitAttempt);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void enqueueWord(WordCount wordCount) {
+        // Implementation of enqueueWord method, blocks while the shuffle is MAP_QUEUE_CAPACITY words behind
+
+        if (this.aborted) {
+            return;
+        }
+        try {
+            this.wordsSplitten.put(wordCount);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
     public void startShufflingThread() {
         //Implementation of startShufflingThread method
 
+        long shuffleStart = System.nanoTime();
         Thread shufflingThread = new Thread(() -> {
-            while (this.mapingRunning | !this.wordsSplitten.isEmpty()) {
-                if (!this.wordsSplitten.isEmpty()) {
-                    String word = this.wordsSplitten.poll();
-                    sendWord(word);
+            try {
+                openShuffleConnections();
+            } catch (UncheckedIOException e) {
+                // Without all its connections the shuffle would lose words: the mappers are stopped, and the master is told to abort the job
+                e.printStackTrace();
+                stopMapping();
+                closeShuffleConnections();
+                sendFailure(e.getMessage());
+                return;
+            }
+            startLingerFlushingThread();
+            try {
+                Object word;
+                SplitAttempt splitAttempt = null;
+                while ((word = this.wordsSplitten.take()) != END_OF_WORDS) {
+                    if (word == splitAttempt) {
+                        endShuffledAttempt(splitAttempt);
+                        splitAttempt = null;
+                    } else if (word instanceof SplitAttempt) {
+                        splitAttempt = (SplitAttempt) word;
+                        startShuffledAttempt(splitAttempt);
+                    } else {
+                        sendWord((WordCount) word);
+                    }
                 }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
+            closeShuffleConnections();
+            recordPhase("shuffle", shuffleStart);
             this.setStatus(SlaveStatus.WAITING_REDUCE);
             sendStatus();
         });
         shufflingThread.start();
     }
 
-    public void startReducingThread() {
-        //Implementation of startReducingThread method
+    public void startShuffledAttempt(SplitAttempt splitAttempt) {
+        // Implementation of startShuffledAttempt method, the next batches carry the split and the attempt of their words
 
-        Thread reducingThread = new Thread(() -> {
-            listeningWordsRunning = false;
-            while (!this.wordsSplitten.isEmpty()) {
-                if (!this.wordsSplitten.isEmpty()) {
-                    String word = this.wordsSplitten.poll();
-                    if (this.wordsCount.containsKey(word)){
-                        this.wordsCount.put(word, this.wordsCount.get(word) + 1);
-                    } else {
-                        this.wordsCount.put(word, 1);
+        for (ShuffleConnection connection : this.shuffleConnections.values()) {
+            try {
+                connection.startAttempt(splitAttempt.getSplit(), splitAttempt.getAttempt());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void endShuffledAttempt(SplitAttempt splitAttempt) {
+        // Implementation of endShuffledAttempt method, every reducer receives the end of the attempt before the master; the end of a failed attempt is only reported to the master
+
+        for (ShuffleConnection connection : this.shuffleConnections.values()) {
+            if (splitAttempt.isFailed()) {
+                connection.abortAttempt();
+                continue;
+            }
+            try {
+                connection.endAttempt();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        splitAttempt.end();
+        sendProgress(splitAttempt, true);
+    }
+
+    public void openShuffleConnections() {
+        //Implementation of openShuffleConnections method
+
+        // A slave that cannot be reached after all the tries fails the shuffle, instead of dropping the words of its partition
+        for (String slave : this.slavesAdresses) {
+            long backoff = SHUFFLE_CONNECT_BACKOFF_MS;
+            for (int attempt = 1; !this.shuffleConnections.containsKey(slave); attempt++) {
+                try {
+                    this.shuffleConnections.put(slave, new ShuffleConnection(this.myAdress, this.job, this.slavesIP.get(slave), SlaveAddress.shufflePort(slave), SHUFFLE_BATCH_SIZE, SHUFFLE_LINGER_MS));
+                } catch (IOException e) {
+                    System.out.println("Connection with slave " + slave + " refused on port " + SlaveAddress.shufflePort(slave) + " (try " + attempt + "/" + SHUFFLE_CONNECT_ATTEMPTS + ")");
+                    if (attempt == SHUFFLE_CONNECT_ATTEMPTS) {
+                        throw new UncheckedIOException("Shuffle connection with slave " + slave + " failed", e);
+                    }
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        throw new UncheckedIOException("Shuffle connection with slave " + slave + " interrupted", e);
+                    }
+                    backoff *= 2;
+                }
+            }
+        }
+    }
+
+    public void startLingerFlushingThread() {
+        //Implementation of startLingerFlushingThread method
+
+        Thread lingerFlushingThread = new Thread(() -> {
+            while (this.shufflingRunning) {
+                try {
+                    Thread.sleep(SHUFFLE_LINGER_MS);
+                    for (ShuffleConnection connection : this.shuffleConnections.values()) {
+                        connection.flushIfLingering();
                     }
+                } catch (InterruptedException | IOException e) {
+                    e.printStackTrace();
                 }
             }
+        });
+        lingerFlushingThread.setDaemon(true);
+        lingerFlushingThread.start();
+    }
+
+    public void closeShuffleConnections() {
+        //Implementation of closeShuffleConnections method
+
+        this.shufflingRunning = false;
+        for (ShuffleConnection connection : this.shuffleConnections.values()) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void startReducingThread() {
+        //Implementation of startReducingThread method, the words are counted as they are received; this thread waits for the end of the committed attempt of every split
+
+        long reduceStart = System.nanoTime();
+        Thread reducingThread = new Thread(() -> {
+            try {
+                this.splitsReduced.await();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            recordPhase("reduce", reduceStart);
+            this.listeningWordsRunning = false;
             this.setStatus(SlaveStatus.REDUCE_DONE);
             sendStatus();
         });
         reducingThread.start();
     }
 
+    public void receiveShuffleFrame(byte[] frame) {
+        // Implementation of receiveShuffleFrame method, the batches of a committed attempt are reduced, the ones of an attempt not committed yet are staged, the others are dropped
+
+        int[] splitAttempt = ShuffleConnection.readAttempt(frame);
+        int split = splitAttempt[0];
+        int attempt = splitAttempt[1];
+        synchronized (this.attemptsLock) {
+            StagedAttempt staged = this.receivedAttempts.computeIfAbsent(attempt, key -> new StagedAttempt(split, this.workDirectory.resolve("staging/attempt" + key + ".bin")));
+            Integer committedAttempt = this.committedAttempts.get(split);
+            if (frame[0] == SignalCodec.ATTEMPT_END) {
+                staged.end();
+                if (committedAttempt != null && committedAttempt == attempt) {
+                    this.splitsReduced.countDown();
+                }
+                return;
+            }
+            if (committedAttempt == null) {
+                try {
+                    staged.add(frame);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return;
+            }
+            if (committedAttempt != attempt) {
+                return;
+            }
+        }
+        // The frames of a connection are received in order, so the end of the attempt is counted after this batch is reduced
+        reduceBatch(frame);
+    }
+
+    public void commitAttempt(int split, int attempt) {
+        // Implementation of commitAttempt method, the staged batches of the attempt are reduced and the ones of the other attempts of the split are discarded; a running attempt of the split on this slave is cancelled
+
+        synchronized (this.attemptsLock) {
+            if (!this.committedAttempts.containsKey(split)) {
+                this.committedAttempts.put(split, attempt);
+                for (StagedAttempt staged : this.receivedAttempts.values()) {
+                    if (staged.getSplit() != split) {
+                        continue;
+                    }
+                    try {
+                        if (staged == this.receivedAttempts.get(attempt)) {
+                            staged.replay(this::reduceBatch);
+                        } else {
+                            staged.discard();
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+                StagedAttempt committed = this.receivedAttempts.get(attempt);
+                if (committed != null && committed.isEnded()) {
+                    this.splitsReduced.countDown();
+                }
+            }
+        }
+        SplitAttempt splitAttempt = this.currentAttempt;
+        if (splitAttempt != null && splitAttempt.getSplit() == split && splitAttempt.getAttempt() != attempt) {
+            splitAttempt.cancel();
+        }
+        this.splitsCommitted.countDown();
+    }
+
+    public void reduceBatch(byte[] batch) {
+        // Implementation of reduceBatch method, adds a batch frame received from a slave to the counts, decoding its words in place; one lock per batch, as every connection is read by its own thread
+
+        try {
+            synchronized (this.wordsCount) {
+                if (this.offHeapReduce) {
+                    ShuffleConnection.decodeBatch(batch, this.offHeapWordsCount::add);
+                } else {
+                    ShuffleConnection.decodeBatch(batch, (bytes, offset, length, count) -> this.wordsCount.add(new String(bytes, offset, length, StandardCharsets.UTF_8), (int) count));
+                }
+                if (reduceMemory() > this.reduceMemoryBudget) {
+                    spillCounts();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long reduceMemory() {
+        // Implementation of reduceMemory method
+
+        return this.offHeapReduce ? this.offHeapWordsCount.memoryBytes() : this.wordsCount.memoryBytes();
+    }
+
+    public void spillCounts() throws IOException {
+        // Implementation of spillCounts method, writes the counts as a sorted run on the disk and empties the table
+
+        if (this.offHeapReduce) {
+            this.spilledRuns.spill(this.offHeapWordsCount::forEach);
+            this.offHeapWordsCount.clear();
+        } else {
+            this.spilledRuns.spill(consumer -> this.wordsCount.forEach((word, count) -> {
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                consumer.accept(bytes, 0, bytes.length, count);
+            }));
+            this.wordsCount.clear();
+        }
+    }
+
+    public ArrayList<WordCount> sortCounts(ArrayList<WordCount> hotCounts) {
+        // Implementation of sortCounts method, the counts of the table in WordCount.RESULT_ORDER, except the ones of the hot words given apart
+
+        ArrayList<WordCount> sortedCounts = new ArrayList<>();
+        if (this.offHeapReduce) {
+            // The words only become Strings here
+            this.offHeapWordsCount.forEach((bytes, offset, length, count) -> sortedCounts.add(new WordCount(new String(bytes, offset, length, StandardCharsets.UTF_8), (int) count)));
+        } else {
+            this.wordsCount.forEach((word, count) -> sortedCounts.add(new WordCount(word, count)));
+        }
+        if (this.partitionTable.size() > 0) {
+            sortedCounts.removeIf(wordCount -> this.partitionTable.isHot(wordCount.getWord()) && hotCounts.add(wordCount));
+        }
+        sortedCounts.sort(WordCount.RESULT_ORDER);
+        return sortedCounts;
+    }
+
+    public SpilledRuns spillCountsInResultOrder(ArrayList<WordCount> hotCounts) throws IOException {
+        // Implementation of spillCountsInResultOrder method, the runs sorted by word are merged into runs sorted by count, each one filling the memory budget; the hot words are given apart
+
+        spillCounts();
+        SpilledRuns resultRuns = new SpilledRuns(this.workDirectory.resolve("spills/results"), true);
+        ByteSliceCountTable buffer = new ByteSliceCountTable();
+        try {
+            this.spilledRuns.merge((bytes, offset, length, count) -> {
+                if (this.partitionTable.size() > 0) {
+                    String word = new String(bytes, offset, length, StandardCharsets.UTF_8);
+                    if (this.partitionTable.isHot(word)) {
+                        hotCounts.add(new WordCount(word, (int) count));
+                        return;
+                    }
+                }
+                buffer.add(bytes, offset, length, SplitTokenizer.hash(bytes, offset, length), count);
+                if (buffer.memoryBytes() > this.reduceMemoryBudget) {
+                    try {
+                        resultRuns.spill(buffer::forEach);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    buffer.clear();
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        resultRuns.spill(buffer::forEach);
+        return resultRuns;
+    }
+
     public void startSendingResult() {
         //Implementation of startSendingResult method
 
         Thread sendingResultThread = new Thread(() -> {
-            for (String word : this.wordsCount.keySet()) {
-                sendWordCount(new WordCount(word, this.wordsCount.get(word)));
+            try (Socket socket = new Socket(this.masterIP, this.masterRESULT_PORT);
+                 OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream())) {
+                // The results are sent in WordCount.RESULT_ORDER, so that the Master only has to merge the streams of the Slaves; they are preceded by one batch of the partial counts of the hot words, summed by the Master
+                ArrayList<WordCount> hotCounts = new ArrayList<>();
+                long sortStart = System.nanoTime();
+                if (this.spilledRuns.size() > 0) {
+                    // The counts did not fit in memory: they are sorted again by count on the disk, and the runs are merged while they are sent
+                    SpilledRuns resultRuns = spillCountsInResultOrder(hotCounts);
+                    recordPhase("sortResults", sortStart);
+                    long sendStart = System.nanoTime();
+                    SignalCodec.writeFrame(outputStream, hotCounts.toArray(new WordCount[0]));
+                    resultRuns.merge((bytes, offset, length, count) -> sendWordCount(new WordCount(new String(bytes, offset, length, StandardCharsets.UTF_8), (int) count), outputStream));
+                    outputStream.flush();
+                    recordPhase("sendResults", sendStart);
+                } else {
+                    ArrayList<WordCount> sortedCounts = sortCounts(hotCounts);
+                    recordPhase("sortResults", sortStart);
+                    long sendStart = System.nanoTime();
+                    SignalCodec.writeFrame(outputStream, hotCounts.toArray(new WordCount[0]));
+                    for (WordCount wordCount : sortedCounts) {
+                        sendWordCount(wordCount, outputStream);
+                    }
+                    outputStream.flush();
+                    recordPhase("sendResults", sendStart);
+                }
+            } catch (IOException e) {
+                // Handle any IO exceptions
+                e.printStackTrace();
             }
+            sendPhaseTimes();
             this.setStatus(SlaveStatus.TERMINATED);
             sendStatus();
+            this.termination.countDown();
         });
         sendingResultThread.start();
     }
 
-    public void sendWord(String word) {
+    public void sendWord(WordCount wordCount) {
         // Implementation of sendWord method
 
-        InetAddress machineIP = this.slavesIP.get(this.slavesAdresses.get(word.hashCode() & 0x7FFFFFFF));
+        String slave = this.slavesAdresses.get(this.partitioner.reducer(wordCount.getWord()));
+        ShuffleConnection connection = this.shuffleConnections.get(slave);
+        if (connection == null) {
+            System.out.println("No shuffle connection with slave " + slave + ", word dropped.");
+            return;
+        }
         try {
-            Socket socket = new Socket(machineIP, SHUFFLE_PORT);
-            ObjectOutputStream outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.writeObject(new WordCount(word));
-            outputStream.flush();
-
-            // Close the output stream and socket connection
-            outputStream.close();
-            socket.close();
+            connection.send(wordCount);
         } catch (IOException e) {
             // Handle any IO exceptions
             e.printStackTrace();
         }
     }
 
-    public void sendWordCount(WordCount wordCount) {
+    public void sendWordCount(WordCount wordCount, OutputStream outputStream) {
         // Implementation of sendWordCount method
 
         try {
-            Socket socket = new Socket(this.masterIP, this.masterRESULT_PORT);
-            ObjectOutputStream outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.writeObject(wordCount);
+            SignalCodec.writeFrame(outputStream, wordCount);
+        } catch (IOException e) {
+            // Handle any IO exceptions
+            e.printStackTrace();
+        }
+    }
+
+    public void sendFailure(String reason) {
+        // Implementation of sendFailure method, the master aborts the job on it
+
+        try {
+            Socket socket = new Socket(masterIP, this.masterSTATUS_PORT);
+            OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+            SignalCodec.writeFrame(outputStream, new FailureSignal(this.myAdress, reason));
             outputStream.flush();
 
             // Close the output stream and socket connection
@@ -358,117 +1022,78 @@ public class Slave {
         }
     }
 
-    /* NOTE: MAIN PROGRAM */
-    public static void main(String[] args){
+    public void stopMapping() {
+        // Implementation of stopMapping method, cancels the running attempt and stops the map pool; the words already queued are dropped, so that no mapper stays blocked on the queue
 
-        Slave slave = new Slave();
-        slave.startCommandListeningThread();
-        while (slave.status.getOrder() < SlaveStatus.TERMINATED.getOrder()){
+        this.aborted = true;
+        SplitAttempt splitAttempt = this.currentAttempt;
+        if (splitAttempt != null) {
+            splitAttempt.cancel();
+            splitAttempt.fail();
         }
+        this.mapPool.shutdownNow();
+        this.wordsSplitten.clear();
     }
 
-    /* NOTE: SIGNALS */
-    public class WordCount implements Serializable{
-
-        private final int count;
-        private final String word;
-
-        public WordCount(String word, int count){
-            this.word = word;
-            this.count = count;
-        }
-
-        public WordCount(String word){
-            this.count = 1;
-            this.word = word;
-        }
+    public void abort() {
+        // Implementation of abort method, stops the job at once and terminates the slave without results; a daemon then frees what the job leaves
 
-        public String getWord(){
-            return this.word;
+        System.out.println("Job aborted by the master");
+        stopMapping();
+        this.wordsSplitten.offer(END_OF_WORDS); // the shuffle stops, if it still runs
+        SplitAttempt splitAttempt = this.currentAttempt;
+        if (splitAttempt != null) {
+            splitAttempt.end();
         }
 
-        public int getCount(){
-            return this.count;
+        // The mapping and reducing threads stop waiting for the splits
+        for (CountDownLatch latch : new CountDownLatch[] {this.splitsCommitted, this.splitsReduced}) {
+            while (latch != null && latch.getCount() > 0) {
+                latch.countDown();
+            }
         }
+        this.listeningWordsRunning = false;
+        this.termination.countDown();
     }
 
-    public enum SlaveStatus implements Serializable{
-        IDLE(0), // The slave is idle and available for tasks
-        MASTER_INFO_RECEIVED(1), // The slave has received the master's information
-        MY_INFO_RECEIVED(2), // The slave has received its own information
-        SLAVES_INFO_RECEIVED(3), // The slave has received the information of all other slaves
-        INTERCONNECTED(4), // The slave has established connections with all other slaves
-        SHUFFLE_ON(5), // The slave has started the shuffle thread process
-        MAPING(6), // The slave is currently performing the maping operation
-        MAPING_DONE(7), // The slave has finished the maping operation
-        WAITING_REDUCE(8), // The slave is waiting for the reduce operation to start
-        REDUCING(9), // The slave is currently performing the reduce operation
-        REDUCE_DONE(10), // The slave has completed the reduce operation
-        SENDING_RESULTS(11), // The slave is sending the results to the master
-        SENDING_RESULTS_DONE(12), // The slave has completed sending the results
-        TERMINATED(13); // The slave has terminated its execution
-
-        private final int order;
-        private String sender;
-
-        SlaveStatus(int order){//, String.class sender) {
-            this.order = order;
-            this.sender = null;
-        }
-
-        public int getOrder() {
-            return order;
-        }
-
-        public String getSender() {
-            return sender;
-        }
-
-        public void setSender(String sender){
-            this.sender = sender;
-        }
+    public void awaitTermination() throws InterruptedException {
+        this.termination.await();
     }
 
-    public enum SlaveCommand implements Serializable{
-        MASTER_INFO(InetAddress.class, Integer.class),    // Command received to provide master information, with "address" and "port" parameters
-        YOUR_INFO(String.class, Boolean.class, String.class),    // Command received to provide slave's own information
-        SLAVES_LIST(ArrayList.class),    // Command received to provide the list of available slaves
-
-        INTERCONNECT,   // Command received to create a fully connected network between slaves
-
-        SHUFFLE_ON, // Command received to start the shuffling process on the slave
-
-        MAP, // Command received to initiate the mapping process on the slave
-
-        REDUCE, // Command received to start the reduce process on the slave
+    public void cleanUp() {
+        // Implementation of cleanUp method, frees what the job of a daemon leaves once it is terminated: its threads, its off-heap counts and its folder
 
-        SEND_RESULTS(Integer.class);   // Command received to send the computed results to the master
-
-        private Class<?>[] parameterTypes;
-        private Object[] parameters;
-
-        @SafeVarargs
-        private SlaveCommand(Class<?>... types) {
-            parameterTypes = types;
-            parameters = new Object[types.length];
+        stopCommandListeningThread();
+        this.mapPool.shutdownNow();
+        if (this.offHeapWordsCount != null) {
+            this.offHeapWordsCount.clear();
         }
-
-        public void setParameters(Object... params) {
-            if (params.length == parameters.length) {
-                for (int i = 0; i < params.length; i++) {
-                    if (params[i] != null && parameterTypes[i].isAssignableFrom(params[i].getClass())) {
-                        parameters[i] = params[i];
-                    } else {
-                        throw new IllegalArgumentException("Invalid parameter type for " + this.name());
-                    }
-                }
-            } else {
-                throw new IllegalArgumentException("Invalid number of parameters for " + this.name());
+        try (Stream<Path> paths = Files.walk(this.workDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
             }
+        } catch (NoSuchFileException e) {
+            // the job did not write anything
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
+
+    /* NOTE: MAIN PROGRAM */
+    public static void main(String[] args){
 
-        public Object[] getParameters() {
-            return parameters;
+        // Optional arguments: number of map threads, all the cores of the machine by default, and port of the commands, STATUS_PORT by default
+        int mapParallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Slave slave = args.length > 1 ? new Slave(mapParallelism, Integer.parseInt(args[1])) : new Slave(mapParallelism);
+        slave.startCommandListeningThread();
+        slave.startCommandHandlingThread();
+        try {
+            slave.termination.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
+        slave.stopCommandListeningThread();
+        slave.stopWordListeningThread();
+        System.exit(0); // the listening threads are still blocked in accept()
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package project.src.Slave;
+
+public final class SlaveAddress {
+    // A slave is named "host", or "host:statusPort:shufflePort" when several slaves share a host; a name without ports uses Slave.STATUS_PORT and Slave.SHUFFLE_PORT
+
+    private SlaveAddress() {}
+
+    public static String of(String host, int statusPort, int shufflePort) {
+        return host + ":" + statusPort + ":" + shufflePort;
+    }
+
+    public static String host(String slave) {
+        int colon = slave.indexOf(':');
+        return colon < 0 ? slave : slave.substring(0, colon);
+    }
+
+    public static int statusPort(String slave) {
+        String[] fields = slave.split(":");
+        return fields.length > 1 ? Integer.parseInt(fields[1]) : Slave.STATUS_PORT;
+    }
+
+    public static int shufflePort(String slave) {
+        String[] fields = slave.split(":");
+        return fields.length > 2 ? Integer.parseInt(fields[2]) : Slave.SHUFFLE_PORT;
+    }
+}
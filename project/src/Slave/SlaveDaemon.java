@@ -0,0 +1,172 @@
+package project.src.Slave;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import project.src.Slave.Signals.SignalCodec;
+
+public class SlaveDaemon {
+    /* NOTE: Attributes */
+
+    private final int mapParallelism; // number of threads of the map pool of each job
+    private final int statusPort; // port on which the commands and the splits of all jobs are received
+    private final int shufflePort; // port on which the words of all jobs are received from the other slaves
+    private final ConcurrentHashMap<Integer, Slave> jobs = new ConcurrentHashMap<>(); // slave of each running job, created by its first command and removed once it has terminated
+    private final Set<Integer> endedJobs = ConcurrentHashMap.newKeySet(); // jobs terminated or aborted, whose late connections must not start them again
+    private final String artifactHash = jarHash(); // SHA-256 of the jar the daemon runs from, given to the masters that check whether it runs their code
+
+    // NOTE: Constructor
+    public SlaveDaemon(int mapParallelism, int statusPort, int shufflePort) {
+        this.mapParallelism = mapParallelism;
+        this.statusPort = statusPort;
+        this.shufflePort = shufflePort;
+    }
+
+    /* NOTE: Methods */
+
+    public int getMapParallelism() {
+        return this.mapParallelism;
+    }
+
+    public int getStatusPort() {
+        return this.statusPort;
+    }
+
+    public void startCommandListeningThread() {
+        // Every connection from a master starts with the job it is for; the first one of a job creates its slave
+
+        Thread commandListeningThread = new Thread(() -> {
+            try (ServerSocket serverSocket = new ServerSocket(this.statusPort)) {
+                System.out.println("Daemon listening to commands on port " + this.statusPort);
+                while (true) {
+                    Socket clientSocket = serverSocket.accept();
+                    int job = readJob(clientSocket);
+                    if (job >= 0 && this.endedJobs.contains(job)) {
+                        System.out.println("Command received for ended job " + job + ", connection closed.");
+                        clientSocket.close();
+                    } else if (job >= 0) {
+                        this.jobs.computeIfAbsent(job, this::startJob).handleCommandConnection(clientSocket);
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        commandListeningThread.start();
+    }
+
+    public void startWordListeningThread() {
+        // Every connection from another slave starts with the job it is for, and then goes to the slave of the job like on its own shuffle port
+
+        Thread wordListeningThread = new Thread(() -> {
+            try (ServerSocket serverSocket = new ServerSocket(this.shufflePort)) {
+                while (true) {
+                    Socket clientSocket = serverSocket.accept();
+                    int job = readJob(clientSocket);
+                    Slave slave = job >= 0 ? this.jobs.get(job) : null;
+                    if (slave != null) {
+                        slave.startWordReceivingThread(clientSocket);
+                    } else if (job >= 0) {
+                        System.out.println("Words received for unknown job " + job + ", connection closed.");
+                        clientSocket.close();
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        wordListeningThread.start();
+    }
+
+    private int readJob(Socket clientSocket) {
+        // Job header of the connection, read on the socket stream itself so that nothing after it is consumed; -1 if the connection is closed or has no header
+
+        try {
+            int job = SignalCodec.readJobHeader(clientSocket.getInputStream());
+            if (job == SignalCodec.ARTIFACT_REQUEST) {
+                // A master checking which jar the daemon runs, before giving it a job
+                OutputStream outputStream = clientSocket.getOutputStream();
+                SignalCodec.writeArtifact(outputStream, this.artifactHash);
+                outputStream.flush();
+                clientSocket.close();
+                return -1;
+            }
+            if (job < 0) {
+                clientSocket.close(); // a master checking that the daemon is up
+            }
+            return job;
+        } catch (IOException e) {
+            System.out.println("Connection without job received, closed.");
+            e.printStackTrace();
+            try {
+                clientSocket.close();
+            } catch (IOException closeException) {
+                closeException.printStackTrace();
+            }
+            return -1;
+        }
+    }
+
+    private Slave startJob(int job) {
+        // A fresh slave with its own state and folder; the JIT-compiled code of the previous jobs is kept, as the JVM stays up
+
+        System.out.println("Job " + job + " started");
+        Slave slave = new Slave(this, job);
+        slave.startCommandHandlingThread();
+        Thread jobEndingThread = new Thread(() -> {
+            try {
+                slave.awaitTermination();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            this.endedJobs.add(job);
+            this.jobs.remove(job);
+            slave.cleanUp();
+            System.out.println("Job " + job + " terminated");
+        });
+        jobEndingThread.setDaemon(true);
+        jobEndingThread.start();
+        return slave;
+    }
+
+    private static String jarHash() {
+        // Same hash as the one of the jar built by the master, read from the file the class was loaded from; empty if it is not a jar, as for the classes folders of a local cluster
+
+        try {
+            Path location = Paths.get(SlaveDaemon.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (!Files.isRegularFile(location)) {
+                return "";
+            }
+            StringBuilder hash = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(location))) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (IOException | URISyntaxException | NoSuchAlgorithmException | SecurityException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    /* NOTE: MAIN PROGRAM */
+    public static void main(String[] args) {
+
+        // Optional arguments: number of map threads of each job, all the cores of the machine by default, port of the commands, STATUS_PORT by default, and port of the words, SHUFFLE_PORT by default
+        int mapParallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int statusPort = args.length > 1 ? Integer.parseInt(args[1]) : Slave.STATUS_PORT;
+        int shufflePort = args.length > 2 ? Integer.parseInt(args[2]) : Slave.SHUFFLE_PORT;
+        SlaveDaemon daemon = new SlaveDaemon(mapParallelism, statusPort, shufflePort);
+        daemon.startCommandListeningThread();
+        daemon.startWordListeningThread();
+    }
+}
@@ -1,12 +1,24 @@
 package project.src.Slave;
 
-import project.src.Slave.Slave.SlaveStatus;
-import project.src.Slave.Slave.WordCount;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+
+import project.src.Slave.Signals.SlaveStatus;
+import project.src.Slave.Signals.WordCount;
 
 public interface SlaveInterface {
     /* Attributes */
     public int STATUS_PORT = 8889;
     public int SHUFFLE_PORT = 8888;
+    public int SHUFFLE_BATCH_SIZE = 1024; // Number of words sent at once to another slave
+    public long SHUFFLE_LINGER_MS = 50; // Max time a word waits in a non-full batch before being sent
+    public int MAP_QUEUE_CAPACITY = 65536; // Max number of word counts waiting for the shuffle, the mapper blocks beyond
+    public long MAP_CHUNK_SIZE = 16L * 1024 * 1024; // Size of the line-aligned chunks of a split mapped by one task
+    public long PROGRESS_INTERVAL_MS = 1000; // Time between two progress reports of a running attempt to the master
+    public long HEARTBEAT_INTERVAL_MS = 1000; // Time between two heartbeats with the counters of the slave to the master
 
     /* Methods */
 
@@ -14,22 +26,54 @@ public interface SlaveInterface {
     void setStatus(SlaveStatus status);
 
     // Handle received signals from Master
-    void startCommandListeningThread(); // Start a thread that listens on port STATUS_PORT and store them in a queue
+    void startCommandListeningThread(); // Start a thread that listens on the status port of the slave (STATUS_PORT by default) and store them in a queue
     void stopCommandListeningThread(); // Stopping the listening for new signal on STATUS_PORT
-    void startCommandHandlingThread(); // Dequeue the commands one by one
-    void handleCommand(Object command); // Actually handle the command
+    void handleCommandConnection(Socket clientSocket); // Read the command of a connection from the master and queue it; a split is received and a commit is applied at once
+    void startCommandHandlingThread(); // Block on the queue of commands and handle them one by one
+    void handleCommand(Object command); // Actually handle the command, with the parameters it was received with
     void findSlavesIP(); // Finding the ip addresses of slaves
     void sendStatus(); // Send the status of the slave to the master via a signal
+    void recordPhase(String phase, long startNanos); // Add the time since startNanos to the duration of the phase (receiveSplits, map, shuffle, reduce, sortResults, sendResults)
+    void sendPhaseTimes(); // Send the duration of each phase of the slave to the master, before its TERMINATED status
+    void startHeartbeatThread(); // Start a thread that sends a heartbeat every HEARTBEAT_INTERVAL_MS once the master is known, until the slave terminates
+    void sendHeartbeat(); // Send the counters of the slave (bytes read and mapped, tokens, records sent to and received from each peer), its queue depths and heap to the master
+    void sendProgress(SplitAttempt splitAttempt, boolean ended); // Send the bytes mapped by an attempt to the master, which detects the stragglers and commits the first attempt ended of each split
+    void sendFailure(String reason); // Tell the master that the slave cannot go on with the job, which the master aborts
 
     // Handle received signals from other Slaves
-    void startWordListeningThread(); // Start a thread that listens on port SHUFFLE_PORT and handle the signal
+    void startWordListeningThread(); // Start a thread that listens on the shuffle port of the slave (SHUFFLE_PORT unless its name gives one) and accepts one persistent connection per slave
+    void startWordReceivingThread(Socket clientSocket); // Start a thread that reads the batches of words of one connection and reduces them as they arrive, until its end
     void stopWordListeningThread(); // Stopping the listening for new signal on SHUFFLE_PORT
+    void receiveShuffleFrame(byte[] frame); // Reduce a batch of a committed attempt, stage the one of an attempt not committed yet in ./staging/, drop the others, and count the ends of the committed attempts
+    void commitAttempt(int split, int attempt); // Reduce the staged batches of the attempt committed by the master, discard the other attempts of the split and cancel the one running here
 
     // Handle map-reduce
-    void startMapingThread(); // Start the Thread maping that split the words on the split, and store them in a queue
+    void startSplitReceivingThread(Socket clientSocket, InputStream inputStream, int split, long length, int attempt); // Start a thread that writes the attempt of the split following the SPLIT command into ./splits/, and gives each line-aligned chunk to MapTasks on a pool of mapParallelism threads as soon as it has arrived, until the attempt is cancelled
+    void startProgressReportingThread(SplitAttempt splitAttempt); // Start a thread that reports the progress of the attempt every PROGRESS_INTERVAL_MS until its end
+    void startMapingThread(); // Start the Thread maping that waits for all splits to be committed and the current attempt to end, then closes the queue of words
+    void enqueueAttempt(SplitAttempt splitAttempt); // Enqueue the attempt before its first word and after its last one, for the shuffle
     void startShufflingThread(); // Start the thread that will dequeue the words and send them to another slave
-    void startReducingThread(); // Start the thread that will dequeue the words received by other slaves
-    void startSendingResult(); // Start the thread that will send the wordCounts to master
-    void sendWord(String word); // Send a word to another Slave
-    void sendWordCount(WordCount word); // Send the word count to the master via a result
+    void startShuffledAttempt(SplitAttempt splitAttempt); // Tag the next batches to every slave with the split and the attempt
+    void endShuffledAttempt(SplitAttempt splitAttempt); // Send the end of the attempt to every slave, then to the master
+    void openShuffleConnections(); // Open one persistent connection to every slave, on its shuffle port, trying SHUFFLE_CONNECT_ATTEMPTS times with a doubling backoff before failing
+    void startLingerFlushingThread(); // Start a thread that flushes the batches waiting for more than SHUFFLE_LINGER_MS
+    void closeShuffleConnections(); // Flush the pending batches and close the connections, which signals the end of the words
+    void startReducingThread(); // Start the thread that waits for the end of the committed attempt of every split, and then reports REDUCE_DONE
+    void reduceBatch(byte[] batch); // Add the counts of a batch frame received from a slave to the counts of the words, on-heap or off-heap, and spill them if they exceed the memory budget
+    long reduceMemory(); // Estimated memory used by the counts, compared to the memory budget
+    void spillCounts() throws IOException; // Write the counts as a run sorted on the words in ./spills/, and empty the table
+    ArrayList<WordCount> sortCounts(ArrayList<WordCount> hotCounts); // The counts of the table, sorted in WordCount.RESULT_ORDER; the ones of the hot words of the partition table are added to hotCounts instead
+    SpilledRuns spillCountsInResultOrder(ArrayList<WordCount> hotCounts) throws IOException; // Spill the last counts, and merge all the runs into runs sorted in WordCount.RESULT_ORDER in ./spills/results/, except the hot words added to hotCounts
+    void startSendingResult(); // Start the thread that will send to master the partial counts of the hot words, then the other wordCounts in WordCount.RESULT_ORDER
+    void enqueueWord(WordCount wordCount); // Enqueue a word count for the shuffle, blocking while the queue is full
+    void sendWord(WordCount wordCount); // Add a word count to the batch of the slave chosen by the partitioner
+    void sendWordCount(WordCount word, OutputStream outputStream); // Send the word count to the master on the result connection
+
+    // Abort of the job
+    void stopMapping(); // Cancel the running attempt, stop the map pool and drop the queued words, so that no mapper stays blocked
+    void abort(); // Stop the job on the command "abort" of the master, and terminate without results
+
+    // Job of a daemon
+    void awaitTermination() throws InterruptedException; // Block until the slave has sent its TERMINATED status, or the job is aborted
+    void cleanUp(); // Stop the threads of the job, free its off-heap counts and delete its folder, once it is terminated
 }
@@ -0,0 +1,45 @@
+package project.src.Slave;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import project.src.Slave.Signals.Heartbeat;
+
+public class SlaveMetrics {
+    /* NOTE: Attributes */
+
+    // Counters since the start of the slave, updated by the receiving, map and shuffle threads without a lock
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesMapped = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> recordsReceived = new ConcurrentHashMap<>(); // by peer, the records sent are counted by the shuffle connections
+
+    /* NOTE: Methods */
+
+    public void addBytesRead(long bytes) {
+        this.bytesRead.add(bytes);
+    }
+
+    public void addMapped(long bytes, long tokens) {
+        // Progress of a map task, reported every MapTask.PROGRESS_STEP bytes and at its end
+        this.bytesMapped.add(bytes);
+        this.tokens.add(tokens);
+    }
+
+    public void addRecordsReceived(String peer, long records) {
+        this.recordsReceived.computeIfAbsent(peer, key -> new LongAdder()).add(records);
+    }
+
+    public Heartbeat heartbeat(String sender, LinkedHashMap<String, Long> recordsSent, int shuffleQueueDepth, int commandQueueDepth) {
+        // Snapshot of the counters with the records sent to each peer, the current queue depths and heap, for the master
+
+        Runtime runtime = Runtime.getRuntime();
+        LinkedHashMap<String, Long> recordsReceived = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> entry : this.recordsReceived.entrySet()) {
+            recordsReceived.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new Heartbeat(sender, this.bytesRead.sum(), this.bytesMapped.sum(), this.tokens.sum(), recordsSent, recordsReceived, shuffleQueueDepth, commandQueueDepth, runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory());
+    }
+}
@@ -0,0 +1,152 @@
+package project.src.Slave;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+public class SpilledRuns {
+    /* NOTE: Attributes */
+
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024; // Buffer of each run while it is written or merged
+
+    private final Path directory; // where the runs are written, created on the first spill
+    private final boolean resultOrder; // runs sorted by decreasing count then word, instead of by word only
+    private final ArrayList<Path> runs = new ArrayList<>();
+
+    // NOTE: Constructor
+    public SpilledRuns(Path directory) {
+        this(directory, false);
+    }
+
+    public SpilledRuns(Path directory, boolean resultOrder) {
+        this.directory = directory;
+        this.resultOrder = resultOrder;
+    }
+
+    /* NOTE: Methods */
+
+    public int size() {
+        return this.runs.size();
+    }
+
+    public void spill(Consumer<ByteSliceCountTable.SliceCountConsumer> counts) throws IOException {
+        // Sort the counts given by the forEach of a table on the UTF-8 bytes of their word (or by decreasing count first, in result order), and write them as a new run of [length][bytes][count] records
+
+        ArrayList<RunEntry> entries = new ArrayList<>();
+        counts.accept((bytes, offset, length, count) -> entries.add(new RunEntry(Arrays.copyOfRange(bytes, offset, offset + length), count)));
+        entries.sort((a, b) -> compare(a.key, a.count, b.key, b.count));
+
+        Files.createDirectories(this.directory);
+        Path run = this.directory.resolve("run" + this.runs.size() + ".bin");
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), STREAM_BUFFER_SIZE))) {
+            for (RunEntry entry : entries) {
+                outputStream.writeInt(entry.key.length);
+                outputStream.write(entry.key);
+                outputStream.writeLong(entry.count);
+            }
+        }
+        this.runs.add(run);
+        System.out.println("Spilled " + entries.size() + " words to " + run);
+    }
+
+    public void merge(ByteSliceCountTable.SliceCountConsumer output) throws IOException {
+        // K-way merge of the runs, giving each word once with the sum of its counts, in the order of the runs; the runs are deleted afterwards
+
+        PriorityQueue<RunReader> readers = new PriorityQueue<>((a, b) -> compare(a.key, a.count, b.key, b.count));
+        try {
+            for (Path run : this.runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.advance()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            while (!readers.isEmpty()) {
+                RunReader reader = readers.poll();
+                byte[] key = reader.key;
+                long count = reader.count;
+                reader.next(readers);
+                while (!readers.isEmpty() && Arrays.equals(readers.peek().key, key)) {
+                    RunReader same = readers.poll();
+                    count += same.count;
+                    same.next(readers);
+                }
+                output.accept(key, 0, key.length, count);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+            for (Path run : this.runs) {
+                Files.deleteIfExists(run);
+            }
+            this.runs.clear();
+        }
+    }
+
+    private int compare(byte[] key, long count, byte[] otherKey, long otherCount) {
+        if (this.resultOrder && count != otherCount) {
+            return Long.compare(otherCount, count);
+        }
+        return Arrays.compareUnsigned(key, otherKey);
+    }
+
+    /* NOTE: Entries of the runs */
+
+    private static class RunEntry {
+        private final byte[] key;
+        private final long count;
+
+        private RunEntry(byte[] key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    private static class RunReader {
+        private final DataInputStream inputStream;
+        private byte[] key; // current record of the run
+        private long count;
+
+        private RunReader(Path run) throws IOException {
+            this.inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), STREAM_BUFFER_SIZE));
+        }
+
+        private boolean advance() throws IOException {
+            // Read the next record; returns false at the end of the run
+            int length;
+            try {
+                length = this.inputStream.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            this.key = new byte[length];
+            this.inputStream.readFully(this.key);
+            this.count = this.inputStream.readLong();
+            return true;
+        }
+
+        private void next(PriorityQueue<RunReader> readers) throws IOException {
+            // Go on with the next record, back in the queue, or close the run at its end
+            if (advance()) {
+                readers.add(this);
+            } else {
+                close();
+            }
+        }
+
+        private void close() throws IOException {
+            this.inputStream.close();
+        }
+    }
+}
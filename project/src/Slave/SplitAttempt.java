@@ -0,0 +1,73 @@
+package project.src.Slave;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SplitAttempt {
+    /* NOTE: Attributes */
+
+    private final int split;
+    private final int attempt; // number given by the master, the same split may be mapped by several attempts
+    private final long length;
+    private final AtomicLong mappedBytes = new AtomicLong(); // approximate, updated by the map tasks every MapTask.PROGRESS_STEP bytes
+    private volatile boolean cancelled = false; // another attempt of the split was committed, the words of this one are useless
+    private volatile boolean failed = false; // the split was not entirely received or mapped, the master has to launch another attempt
+    private final CountDownLatch ended = new CountDownLatch(1); // released once the shuffle has sent the end of the attempt
+
+    // NOTE: Constructor
+    public SplitAttempt(int split, int attempt, long length) {
+        this.split = split;
+        this.attempt = attempt;
+        this.length = length;
+    }
+
+    /* NOTE: Methods */
+
+    public int getSplit() {
+        return this.split;
+    }
+
+    public int getAttempt() {
+        return this.attempt;
+    }
+
+    public long getLength() {
+        return this.length;
+    }
+
+    public long getMappedBytes() {
+        return this.mappedBytes.get();
+    }
+
+    public void addMappedBytes(long bytes) {
+        this.mappedBytes.addAndGet(bytes);
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isFailed() {
+        return this.failed;
+    }
+
+    public void fail() {
+        this.failed = true;
+    }
+
+    public boolean isEnded() {
+        return this.ended.getCount() == 0;
+    }
+
+    public void end() {
+        this.ended.countDown();
+    }
+
+    public void awaitEnd() throws InterruptedException {
+        this.ended.await();
+    }
+}
@@ -0,0 +1,179 @@
+package project.src.Slave;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class SplitTokenizer {
+    /* NOTE: Attributes */
+
+    public static final long WINDOW_SIZE = 64L * 1024 * 1024; // Size of the part of the file mapped at once
+    public static final int CHUNK_SIZE = 64 * 1024; // Size of the array in which the mapped window is scanned
+
+    private static final boolean[] DELIMITERS = new boolean[256]; // ASCII whitespaces, they never appear inside a UTF-8 multi-byte character
+
+    static {
+        for (char c : new char[] {' ', '\t', '\n', '\r', '\f', 0x0B}) {
+            DELIMITERS[c] = true;
+        }
+    }
+
+    private final long windowSize;
+    private byte[] chunk = new byte[CHUNK_SIZE]; // reused for every chunk, only grows for tokens longer than it
+
+    // NOTE: Constructor
+    public SplitTokenizer() {
+        this(WINDOW_SIZE);
+    }
+
+    public SplitTokenizer(long windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /* NOTE: Methods */
+
+    public long tokenize(Path path, TokenConsumer consumer) throws IOException {
+        // Tokenize the whole file; returns the number of bytes read
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return tokenize(channel, 0, channel.size(), consumer);
+        }
+    }
+
+    public long tokenize(FileChannel channel, long start, long length, TokenConsumer consumer) throws IOException {
+        // Map the range [start, start + length) window by window, copy each window chunk by chunk in a reused array, and give every token to the consumer as a slice of it
+
+        long end = start + length;
+        int carry = 0; // bytes of a token cut by the end of the previous chunk, kept at the start of the array
+        for (long position = start; position < end; position += this.windowSize) {
+            long mappedSize = Math.min(this.windowSize, end - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, mappedSize);
+            for (int chunkStart = 0; chunkStart < mappedSize; ) {
+                if (carry == this.chunk.length) {
+                    this.chunk = Arrays.copyOf(this.chunk, 2 * this.chunk.length);
+                }
+                int read = (int) Math.min(this.chunk.length - carry, mappedSize - chunkStart);
+                buffer.get(chunkStart, this.chunk, carry, read);
+                chunkStart += read;
+                carry = scan(this.chunk, carry + read, consumer);
+            }
+        }
+        if (carry > 0) {
+            consumer.accept(this.chunk, 0, carry, hash(this.chunk, 0, carry));
+        }
+        return length;
+    }
+
+    private static int scan(byte[] chunk, int limit, TokenConsumer consumer) {
+        // Give the tokens of chunk[0, limit) to the consumer, except the last one if it may go on; returns its length, moved to the start of the chunk
+
+        int tokenStart = -1;
+        int hash = 0;
+        for (int i = 0; i < limit; i++) {
+            byte b = chunk[i];
+            if (DELIMITERS[b & 0xFF]) {
+                if (tokenStart >= 0) {
+                    consumer.accept(chunk, tokenStart, i - tokenStart, hash);
+                    tokenStart = -1;
+                }
+            } else {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                    hash = 0;
+                }
+                hash = 31 * hash + b;
+            }
+        }
+        if (tokenStart < 0) {
+            return 0;
+        }
+        System.arraycopy(chunk, tokenStart, chunk, 0, limit - tokenStart);
+        return limit - tokenStart;
+    }
+
+    public static long[] splitAtLines(FileChannel channel, long start, long length, int parts) throws IOException {
+        // Cut [start, start + length) into at most parts ranges ending on a line; returns the boundaries, from start to start + length
+
+        long end = start + length;
+        long[] boundaries = new long[parts + 1];
+        boundaries[0] = start;
+        int count = 1;
+        ByteBuffer scanBuffer = ByteBuffer.allocate(4096);
+        for (int k = 1; k < parts; k++) {
+            long target = Math.max(start + k * (length / parts), boundaries[count - 1]);
+            long boundary = nextLineStart(channel, target, end, scanBuffer);
+            if (boundary > boundaries[count - 1] && boundary < end) {
+                boundaries[count++] = boundary;
+            }
+        }
+        boundaries[count++] = end;
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long end, ByteBuffer scanBuffer) throws IOException {
+        // Scan from position to the first '\n', and return the position right after it (or end if there is none)
+
+        while (position < end) {
+            scanBuffer.clear();
+            scanBuffer.limit((int) Math.min(scanBuffer.capacity(), end - position));
+            int read = channel.read(scanBuffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scanBuffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    public static long lastLineEnd(FileChannel channel, long start, long end) throws IOException {
+        // Scan back from end to the last '\n' of [start, end), and return the position right after it (or start if there is none)
+
+        ByteBuffer scanBuffer = ByteBuffer.allocate(4096);
+        long position = end;
+        while (position > start) {
+            int size = (int) Math.min(scanBuffer.capacity(), position - start);
+            position -= size;
+            scanBuffer.clear();
+            scanBuffer.limit(size);
+            while (scanBuffer.hasRemaining()) {
+                if (channel.read(scanBuffer, position + scanBuffer.position()) <= 0) {
+                    return start;
+                }
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                if (scanBuffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return start;
+    }
+
+    public static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
+    public static boolean isDelimiter(byte b) {
+        return DELIMITERS[b & 0xFF];
+    }
+
+    /* NOTE: Consumer of tokens */
+
+    public interface TokenConsumer {
+        // The token is bytes[offset, offset + length), and hash is 31 * hash + byte over them; the array is reused once the call returns
+        void accept(byte[] bytes, int offset, int length, int hash);
+    }
+}
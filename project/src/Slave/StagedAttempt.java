@@ -0,0 +1,101 @@
+package project.src.Slave;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+public class StagedAttempt {
+    /* NOTE: Attributes */
+
+    public static final long MEMORY_LIMIT = 64L * 1024 * 1024; // Bytes of batches kept in memory, the next ones are written to the staging file
+
+    private final int split;
+    private final Path path; // staging file, only created once the memory limit is reached
+    private final ArrayList<byte[]> batches = new ArrayList<>();
+    private long memoryBytes = 0;
+    private DataOutputStream fileStream;
+    private boolean ended = false; // the end of the attempt was received
+
+    // NOTE: Constructor
+    public StagedAttempt(int split, Path path) {
+        this.split = split;
+        this.path = path;
+    }
+
+    /* NOTE: Methods */
+
+    public int getSplit() {
+        return this.split;
+    }
+
+    public void add(byte[] batch) throws IOException {
+        // Keep a batch frame of the attempt until it is committed or discarded, undecoded
+
+        if (this.fileStream == null && this.memoryBytes + batch.length <= MEMORY_LIMIT) {
+            this.batches.add(batch);
+            this.memoryBytes += batch.length;
+            return;
+        }
+        if (this.fileStream == null) {
+            Files.createDirectories(this.path.getParent());
+            this.fileStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.path), SpilledRuns.STREAM_BUFFER_SIZE));
+        }
+        this.fileStream.writeInt(batch.length);
+        this.fileStream.write(batch);
+    }
+
+    public boolean isEnded() {
+        return this.ended;
+    }
+
+    public void end() {
+        this.ended = true;
+    }
+
+    public void replay(Consumer<byte[]> reducer) throws IOException {
+        // Give all the batches to the reducer in the order they were received, and free them
+
+        for (byte[] batch : this.batches) {
+            reducer.accept(batch);
+        }
+        this.batches.clear();
+        this.memoryBytes = 0;
+        if (this.fileStream != null) {
+            this.fileStream.close();
+            this.fileStream = null;
+            try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.path), SpilledRuns.STREAM_BUFFER_SIZE))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = inputStream.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    byte[] batch = new byte[length];
+                    inputStream.readFully(batch);
+                    reducer.accept(batch);
+                }
+            }
+            Files.deleteIfExists(this.path);
+        }
+    }
+
+    public void discard() throws IOException {
+        // Forget the batches of an attempt that lost
+
+        this.batches.clear();
+        this.memoryBytes = 0;
+        if (this.fileStream != null) {
+            this.fileStream.close();
+            this.fileStream = null;
+            Files.deleteIfExists(this.path);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package project.src.Slave;
+
+import java.util.function.ObjIntConsumer;
+
+public class WordCountTable {
+    /* NOTE: Attributes */
+
+    public static final int STRING_BYTES = 48; // Heap of a String and of its array, besides one byte per (Latin-1) character
+
+    private String[] keys; // open addressing with linear probing, null for a free slot
+    private int[] hashes; // hash of the key of each slot, compared before the key itself
+    private int[] counts;
+    private int size = 0;
+    private long keyBytes = 0; // estimated heap of the String keys
+    private final int initialCapacity;
+
+    // NOTE: Constructor
+    public WordCountTable() {
+        this(1024);
+    }
+
+    public WordCountTable(int expectedSize) {
+        int capacity = 16;
+        while (capacity < 2 * expectedSize) {
+            capacity *= 2;
+        }
+        this.initialCapacity = capacity;
+        allocate(capacity);
+    }
+
+    /* NOTE: Methods */
+
+    public int add(String word, int count) {
+        // Add count to the count of the word, in place; returns the new count
+
+        int hash = word.hashCode();
+        int mask = this.keys.length - 1;
+        int slot = WordInterner.mix(hash) & mask;
+        String key;
+        while ((key = this.keys[slot]) != null) {
+            if (this.hashes[slot] == hash && key.equals(word)) {
+                return this.counts[slot] += count;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (2 * (this.size + 1) > this.keys.length) {
+            grow();
+            mask = this.keys.length - 1;
+            slot = WordInterner.mix(hash) & mask;
+            while (this.keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        this.keys[slot] = word;
+        this.hashes[slot] = hash;
+        this.counts[slot] = count;
+        this.size++;
+        this.keyBytes += STRING_BYTES + word.length();
+        return count;
+    }
+
+    public int get(String word) {
+        // Returns the count of the word, 0 if it was never added
+
+        int hash = word.hashCode();
+        int mask = this.keys.length - 1;
+        int slot = WordInterner.mix(hash) & mask;
+        String key;
+        while ((key = this.keys[slot]) != null) {
+            if (this.hashes[slot] == hash && key.equals(word)) {
+                return this.counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public long memoryBytes() {
+        // Estimated heap used by the table and its keys, with compressed references (the keys are counted even when they are shared)
+
+        return 12L * this.keys.length + this.keyBytes;
+    }
+
+    public void forEach(ObjIntConsumer<String> consumer) {
+        // Give every word with its count to the consumer, in no particular order
+
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != null) {
+                consumer.accept(this.keys[slot], this.counts[slot]);
+            }
+        }
+    }
+
+    public void clear() {
+        // Forget all the words, and give back the memory of the arrays
+        allocate(this.initialCapacity);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.counts = new int[capacity];
+        this.size = 0;
+        this.keyBytes = 0;
+    }
+
+    private void grow() {
+        String[] oldKeys = this.keys;
+        int[] oldHashes = this.hashes;
+        int[] oldCounts = this.counts;
+        int oldSize = this.size;
+        long oldKeyBytes = this.keyBytes;
+
+        allocate(2 * oldKeys.length);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = WordInterner.mix(oldHashes[i]) & mask;
+                while (this.keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.hashes[slot] = oldHashes[i];
+                this.counts[slot] = oldCounts[i];
+            }
+        }
+        this.size = oldSize;
+        this.keyBytes = oldKeyBytes;
+    }
+}
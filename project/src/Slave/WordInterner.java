@@ -0,0 +1,105 @@
+package project.src.Slave;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class WordInterner {
+    /* NOTE: Attributes */
+
+    public static final int MAX_WORDS = 1 << 20; // Beyond this number of distinct words, the interner forgets everything and starts again
+
+    private final int maxWords;
+
+    private byte[][] keys; // UTF-8 bytes of the words, open addressing with linear probing
+    private int[] hashes;
+    private String[] words;
+    private int size = 0;
+
+    // NOTE: Constructor
+    public WordInterner() {
+        this(MAX_WORDS);
+    }
+
+    public WordInterner(int maxWords) {
+        this.maxWords = maxWords;
+        allocate(1024);
+    }
+
+    /* NOTE: Methods */
+
+    public String intern(byte[] bytes, int offset, int length, int hash) {
+        // Returns the word of the bytes[offset, offset + length); a String is only created the first time the word is seen
+
+        int mask = this.keys.length - 1;
+        int slot = mix(hash) & mask;
+        byte[] key;
+        while ((key = this.keys[slot]) != null) {
+            if (this.hashes[slot] == hash && Arrays.equals(key, 0, key.length, bytes, offset, offset + length)) {
+                return this.words[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        key = Arrays.copyOfRange(bytes, offset, offset + length);
+        String word = new String(key, StandardCharsets.UTF_8);
+
+        if (this.size >= this.maxWords) {
+            allocate(this.keys.length);
+            slot = mix(hash) & (this.keys.length - 1);
+        } else if (2 * (this.size + 1) > this.keys.length) {
+            grow();
+            mask = this.keys.length - 1;
+            slot = mix(hash) & mask;
+            while (this.keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        this.keys[slot] = key;
+        this.hashes[slot] = hash;
+        this.words[slot] = word;
+        this.size++;
+        return word;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    static int mix(int hash) {
+        // Spread the bits of the polynomial hash (murmur3 finalizer), whose low bits are poor for short words; shared with the count tables
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new byte[capacity][];
+        this.hashes = new int[capacity];
+        this.words = new String[capacity];
+        this.size = 0;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = this.keys;
+        int[] oldHashes = this.hashes;
+        String[] oldWords = this.words;
+        int oldSize = this.size;
+
+        allocate(2 * oldKeys.length);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = mix(oldHashes[i]) & mask;
+                while (this.keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.hashes[slot] = oldHashes[i];
+                this.words[slot] = oldWords[i];
+            }
+        }
+        this.size = oldSize;
+    }
+}